@@ -0,0 +1,88 @@
+package ru.practicum.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.practicum.stats.client.HitOverflowPolicy;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.client")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class StatsClientProperties {
+    Hits hits = new Hits();
+    Http http = new Http();
+    CircuitBreaker circuitBreaker = new CircuitBreaker();
+    Cache cache = new Cache();
+    Spool spool = new Spool();
+    Debounce debounce = new Debounce();
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Hits {
+        boolean async = false;
+        int queueCapacity = 10_000;
+        int batchSize = 500;
+        Duration flushInterval = Duration.ofSeconds(1);
+        HitOverflowPolicy overflowPolicy = HitOverflowPolicy.DROP_OLDEST;
+        boolean binary = false;
+        boolean ids = true;
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Http {
+        Duration connectTimeout = Duration.ofSeconds(2);
+        Duration readTimeout = Duration.ofSeconds(3);
+        int maxConcurrentCalls = 50;
+        boolean coalesceRequests = true;
+        int asyncThreads = 4;
+        Duration asyncTimeout = Duration.ofSeconds(2);
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class CircuitBreaker {
+        int failureThreshold = 5;
+        Duration openDuration = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Cache {
+        boolean enabled = false;
+        long maximumSize = 100_000;
+        Duration ttl = Duration.ofMinutes(1);
+        Duration refreshAfter = Duration.ofSeconds(30);
+        Duration windowGranularity = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Spool {
+        Path directory;
+        long segmentBytes = 16L * 1024 * 1024;
+        long maxBytes = 512L * 1024 * 1024;
+        Duration replayInterval = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Debounce {
+        boolean enabled = false;
+        Duration window = Duration.ofMinutes(1);
+        int slices = 6;
+        int capacity = 65_536;
+    }
+}
\ No newline at end of file
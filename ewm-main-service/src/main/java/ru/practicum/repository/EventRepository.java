@@ -19,9 +19,6 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     @Query("SELECT e FROM Event e WHERE e.state IN :states")
     Page<Event> findAllByStateIn(List<EventState> states, Pageable pageable);
 
-    @Query("SELECT e FROM Event e WHERE e.state = 'PUBLISHED'")
-    Page<Event> findAllPublishedEvents(Pageable pageable);
-
     List<Event> findByIdIn(List<Long> eventIds);
 
     @Query("""
@@ -44,4 +41,31 @@ public interface EventRepository extends JpaRepository<Event, Long> {
             @Param("rangeStart") java.time.LocalDateTime rangeStart,
             @Param("rangeEnd") java.time.LocalDateTime rangeEnd
     );
+
+    @Query("""
+            SELECT e
+            FROM Event e
+            JOIN FETCH e.initiator
+            JOIN FETCH e.category
+            WHERE e.state = 'PUBLISHED'
+              AND (LOWER(e.annotation) LIKE :text ESCAPE '\\' OR LOWER(e.description) LIKE :text ESCAPE '\\')
+              AND (:categoriesAll = true OR e.category.id IN :categories)
+              AND e.paid = COALESCE(:paid, e.paid)
+              AND (e.eventDate >= COALESCE(:rangeStart, e.eventDate))
+              AND (e.eventDate <= COALESCE(:rangeEnd, e.eventDate))
+              AND (:onlyAvailable = false
+                   OR e.participantLimit = 0
+                   OR e.participantLimit > (SELECT COUNT(r) FROM Request r
+                                            WHERE r.event = e AND r.status = 'CONFIRMED'))
+            """)
+    List<Event> findAllPublicFiltered(
+            @Param("text") String text,
+            @Param("categories") List<Long> categories,
+            @Param("categoriesAll") boolean categoriesAll,
+            @Param("paid") Boolean paid,
+            @Param("rangeStart") java.time.LocalDateTime rangeStart,
+            @Param("rangeEnd") java.time.LocalDateTime rangeEnd,
+            @Param("onlyAvailable") boolean onlyAvailable,
+            Pageable pageable
+    );
 }
\ No newline at end of file
@@ -5,8 +5,11 @@ import org.springframework.data.jpa.repository.Query;
 import ru.practicum.model.Request;
 import ru.practicum.model.RequestStatus;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public interface RequestRepository extends JpaRepository<Request, Long> {
     List<Request> findByRequesterId(Long userId);
@@ -19,4 +22,17 @@ public interface RequestRepository extends JpaRepository<Request, Long> {
     Long countByEventIdAndStatus(Long eventId, RequestStatus status);
 
     List<Request> findByIdIn(List<Long> requestIds);
+
+    @Query("SELECT r.event.id, COUNT(r) FROM Request r " +
+           "WHERE r.event.id IN :eventIds AND r.status = :status " +
+           "GROUP BY r.event.id")
+    List<Object[]> countGroupedByEventIdAndStatus(Collection<Long> eventIds, RequestStatus status);
+
+    default Map<Long, Long> countConfirmedByEventIds(Collection<Long> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return Map.of();
+        }
+        return countGroupedByEventIdAndStatus(eventIds, RequestStatus.CONFIRMED).stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
+    }
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ import ru.practicum.repository.RequestRepository;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -28,7 +29,7 @@ public class CompilationService {
     CompilationRepository compilationRepository;
     EventRepository eventRepository;
     RequestRepository requestRepository;
-    StatsService statsService;
+    ViewCountResolver viewCountResolver;
 
     @Transactional
     public CompilationDto createCompilation(NewCompilationDto newCompilationDto) {
@@ -42,7 +43,7 @@ public class CompilationService {
             compilation.setEvents(new HashSet<>());
         }
         Compilation saved = compilationRepository.save(compilation);
-        return CompilationMapper.toCompilationDto(saved, requestRepository, statsService);
+        return toCompilationDto(saved);
     }
 
     @Transactional
@@ -65,7 +66,7 @@ public class CompilationService {
             compilation.setEvents(events);
         }
         Compilation updated = compilationRepository.save(compilation);
-        return CompilationMapper.toCompilationDto(updated, requestRepository, statsService);
+        return toCompilationDto(updated);
     }
 
     @Transactional(readOnly = true)
@@ -74,8 +75,11 @@ public class CompilationService {
         Page<Compilation> compilations = pinned != null
                 ? compilationRepository.findByPinned(pinned, pageable)
                 : compilationRepository.findAll(pageable);
+        Set<Long> eventIds = getEventIds(compilations.getContent());
+        Map<Long, Long> confirmed = requestRepository.countConfirmedByEventIds(eventIds);
+        Map<Long, Long> views = viewCountResolver.resolveByIds(eventIds);
         return compilations.stream()
-                .map(c -> CompilationMapper.toCompilationDto(c, requestRepository, statsService))
+                .map(c -> CompilationMapper.toCompilationDto(c, confirmed, views))
                 .collect(Collectors.toList());
     }
 
@@ -83,6 +87,20 @@ public class CompilationService {
     public CompilationDto getCompilation(Long compId) {
         Compilation compilation = compilationRepository.findById(compId)
                 .orElseThrow(() -> new RuntimeException(String.format("Compilation with id '%d' not found", compId)));
-        return CompilationMapper.toCompilationDto(compilation, requestRepository, statsService);
+        return toCompilationDto(compilation);
+    }
+
+    private CompilationDto toCompilationDto(Compilation compilation) {
+        Set<Long> eventIds = getEventIds(List.of(compilation));
+        return CompilationMapper.toCompilationDto(compilation,
+                requestRepository.countConfirmedByEventIds(eventIds),
+                viewCountResolver.resolveByIds(eventIds));
+    }
+
+    private Set<Long> getEventIds(List<Compilation> compilations) {
+        return compilations.stream()
+                .flatMap(c -> c.getEvents().stream())
+                .map(Event::getId)
+                .collect(Collectors.toSet());
     }
 }
\ No newline at end of file
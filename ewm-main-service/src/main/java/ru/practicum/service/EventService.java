@@ -7,6 +7,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.dto.*;
@@ -15,12 +16,14 @@ import ru.practicum.model.Event;
 import ru.practicum.model.EventState;
 import ru.practicum.repository.CategoryRepository;
 import ru.practicum.repository.EventRepository;
+import ru.practicum.repository.OffsetPageRequest;
 import ru.practicum.repository.RequestRepository;
 import ru.practicum.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,6 +36,7 @@ public class EventService {
     CategoryRepository categoryRepository;
     RequestRepository requestRepository;
     StatsService statsService;
+    ViewCountResolver viewCountResolver;
 
     @Transactional
     public EventFullDto createEvent(Long userId, NewEventDto newEventDto) {
@@ -50,10 +54,12 @@ public class EventService {
     public List<EventShortDto> getUserEvents(Long userId, Integer from, Integer size) {
         Pageable pageable = PageRequest.of(from / size, size);
         Page<Event> events = eventRepository.findByInitiatorId(userId, pageable);
+        Map<Long, Long> confirmed = getConfirmedRequests(events.getContent());
+        Map<Long, Long> views = viewCountResolver.resolve(events.getContent());
         return events.stream()
                 .map(e -> EventMapper.toEventShortDto(e,
-                        requestRepository.countByEventIdAndStatus(e.getId(), ru.practicum.model.RequestStatus.CONFIRMED),
-                        getViews(e.getId())))
+                        confirmed.getOrDefault(e.getId(), 0L),
+                        views.getOrDefault(e.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
@@ -63,7 +69,7 @@ public class EventService {
                 .orElseThrow(() -> new RuntimeException(String.format("Event with id '%d' not found", eventId)));
         return EventMapper.toEventFullDto(event,
                 requestRepository.countByEventIdAndStatus(eventId, ru.practicum.model.RequestStatus.CONFIRMED),
-                getViews(eventId));
+                viewCountResolver.resolve(eventId));
     }
 
     @Transactional
@@ -88,7 +94,7 @@ public class EventService {
         Event updatedEvent = eventRepository.save(event);
         return EventMapper.toEventFullDto(updatedEvent,
                 requestRepository.countByEventIdAndStatus(eventId, ru.practicum.model.RequestStatus.CONFIRMED),
-                getViews(eventId));
+                viewCountResolver.resolve(eventId));
     }
 
     @Transactional(readOnly = true)
@@ -125,10 +131,12 @@ public class EventService {
 
         log.debug("After pagination: {} events", paginated.size());
 
+        Map<Long, Long> confirmed = getConfirmedRequests(paginated);
+        Map<Long, Long> views = viewCountResolver.resolve(paginated);
         return paginated.stream()
                 .map(e -> EventMapper.toEventFullDto(e,
-                        requestRepository.countByEventIdAndStatus(e.getId(), ru.practicum.model.RequestStatus.CONFIRMED),
-                        getViews(e.getId())))
+                        confirmed.getOrDefault(e.getId(), 0L),
+                        views.getOrDefault(e.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
@@ -157,7 +165,7 @@ public class EventService {
         Event updated = eventRepository.save(event);
         return EventMapper.toEventFullDto(updated,
                 requestRepository.countByEventIdAndStatus(eventId, ru.practicum.model.RequestStatus.CONFIRMED),
-                getViews(eventId));
+                viewCountResolver.resolve(eventId));
     }
 
     @Transactional(readOnly = true)
@@ -182,52 +190,25 @@ public class EventService {
             if (from == null || from < 0) {
                 from = 0;
             }
-            Pageable pageable = PageRequest.of(0, 10000);
-            Page<Event> allEvents = eventRepository.findAllPublishedEvents(pageable);
-
-            log.debug("Repository returned {} events", allEvents.getTotalElements());
-
-            List<Event> filtered = allEvents.stream()
-                    .filter(e -> text == null || text.isEmpty()
-                            || (e.getAnnotation() != null && e.getAnnotation().toLowerCase().contains(text.toLowerCase()))
-                            || (e.getDescription() != null && e.getDescription().toLowerCase().contains(text.toLowerCase())))
-                    .filter(e -> categories == null || categories.isEmpty() || categories.contains(e.getCategory().getId()))
-                    .filter(e -> paid == null || e.getPaid().equals(paid))
-                    .filter(e -> {
-                        LocalDateTime s = actualStart;
-                        return s == null || e.getEventDate().isAfter(s) || e.getEventDate().isEqual(s);
-                    })
-                    .filter(e -> {
-                        LocalDateTime e2 = actualEnd;
-                        return e2 == null || e.getEventDate().isBefore(e2) || e.getEventDate().isEqual(e2);
-                    })
-                    .collect(Collectors.toList());
-
-            if (!"VIEWS".equals(sort)) {
-                filtered.sort((a, b) -> a.getEventDate().compareTo(b.getEventDate()));
-            }
-
-            int start = from;
-            int end = Math.min(start + size, filtered.size());
-            List<Event> events = filtered.subList(start, end);
-
-            log.debug("After filtering: {} events", events.size());
-
-            for (Event e : events) {
-                try {
-                    if (e.getCategory() != null) {
-                        e.getCategory().getId();
-                        e.getCategory().getName();
-                    }
-                    if (e.getInitiator() != null) {
-                        e.getInitiator().getId();
-                        e.getInitiator().getName();
-                    }
-                } catch (Exception ex) {
-                    log.error("Error loading related entities for event {}: {}", e.getId(), ex.getMessage(), ex);
-                    throw new RuntimeException(String.format("Error loading event data: %s", ex.getMessage()), ex);
-                }
-            }
+            boolean categoriesAll = (categories == null || categories.isEmpty());
+            String textPattern = (text == null || text.isEmpty())
+                    ? "%"
+                    : "%" + escapeLike(text.toLowerCase()) + "%";
+            Sort order = "VIEWS".equals(sort) ? Sort.by("id") : Sort.by("eventDate");
+            Pageable pageable = OffsetPageRequest.ofOffset(from, size, order);
+
+            List<Event> events = eventRepository.findAllPublicFiltered(
+                    textPattern,
+                    categoriesAll ? List.of(-1L) : categories,
+                    categoriesAll,
+                    paid,
+                    actualStart,
+                    actualEnd,
+                    Boolean.TRUE.equals(onlyAvailable),
+                    pageable
+            );
+
+            log.debug("Repository returned {} events", events.size());
 
             try {
                 statsService.saveHit(uri, ip);
@@ -242,38 +223,14 @@ public class EventService {
             } else {
                 log.debug("Processing {} events", events.size());
                 List<Long> ids = events.stream().map(Event::getId).collect(Collectors.toList());
-                List<String> eventUris = ids.stream()
-                        .map(id -> "/events/" + id)
-                        .collect(Collectors.toList());
-
-                Map<String, Long> viewsMap = java.util.Collections.emptyMap();
-                try {
-                    if (!eventUris.isEmpty()) {
-                        LocalDateTime s = LocalDateTime.now().minusYears(1);
-                        LocalDateTime e3 = LocalDateTime.now().plusYears(1);
-                        List<ru.practicum.stats.dto.ViewStats> allStats =
-                                statsService.getStats(s, e3, eventUris, false);
-                        if (allStats != null && !allStats.isEmpty()) {
-                            viewsMap = allStats.stream()
-                                    .filter(v -> v != null && v.getUri() != null)
-                                    .collect(Collectors.toMap(
-                                            ru.practicum.stats.dto.ViewStats::getUri,
-                                            ru.practicum.stats.dto.ViewStats::getHits,
-                                            (a, b) -> a
-                                    ));
-                        }
-                    }
-                } catch (Exception e) {
-                    log.warn("Error getting stats: {}", e.getMessage(), e);
-                }
-
-                final Map<String, Long> finalViewsMap = viewsMap;
+                Map<Long, Long> viewsMap = viewCountResolver.resolveByIds(ids);
+                Map<Long, Long> confirmedMap = requestRepository.countConfirmedByEventIds(ids);
                 log.debug("Mapping {} events to DTOs", events.size());
                 result = events.stream()
                         .map(e -> {
                             try {
-                                Long v = finalViewsMap.getOrDefault("/events/" + e.getId(), 0L);
-                                Long confirmed = requestRepository.countByEventIdAndStatus(e.getId(), ru.practicum.model.RequestStatus.CONFIRMED);
+                                Long v = viewsMap.getOrDefault(e.getId(), 0L);
+                                Long confirmed = confirmedMap.getOrDefault(e.getId(), 0L);
                                 return EventMapper.toEventShortDto(e, confirmed, v);
                             } catch (Exception ex) {
                                 log.error("Error mapping event {}: {}", e.getId(), ex.getMessage(), ex);
@@ -304,19 +261,20 @@ public class EventService {
             throw new RuntimeException(String.format("Event with id '%d' not found", eventId));
         }
 
-        Long viewsBefore = getViews(eventId);
-
-        try {
-            statsService.saveHit(uri, ip);
-        } catch (Exception e) {
-            // ignore
+        // the views lookup and the hit go out together; a hit the server has already stored by the
+        // time the views are read is counted twice, which is rare since hits are sent in batches.
+        // Any hit that was not debounced counts, even one the client ends up spooling or losing.
+        CompletableFuture<Long> viewsBefore = viewCountResolver.resolveAsync(eventId);
+        boolean counted = statsService.saveHitAsync(uri, ip);
+        Long confirmedRequests = requestRepository.countByEventIdAndStatus(eventId,
+                ru.practicum.model.RequestStatus.CONFIRMED);
+
+        Long views = viewsBefore.join();
+        if (counted) {
+            views++;
         }
 
-        Long views = viewsBefore + 1;
-
-        return EventMapper.toEventFullDto(event,
-                requestRepository.countByEventIdAndStatus(eventId, ru.practicum.model.RequestStatus.CONFIRMED),
-                views);
+        return EventMapper.toEventFullDto(event, confirmedRequests, views);
     }
 
     private void updateEventFields(Event event, UpdateEventUserRequest updateRequest) {
@@ -384,15 +342,18 @@ public class EventService {
         }
     }
 
-    private Long getViews(Long eventId) {
-        try {
-            LocalDateTime start = LocalDateTime.now().minusYears(1);
-            LocalDateTime end = LocalDateTime.now().plusYears(1);
-            List<ru.practicum.stats.dto.ViewStats> stats =
-                    statsService.getStats(start, end, List.of(String.format("/events/%d", eventId)), false);
-            return stats.isEmpty() ? 0L : stats.get(0).getHits();
-        } catch (Exception e) {
-            return 0L;
-        }
+    private Map<Long, Long> getConfirmedRequests(List<Event> events) {
+        return requestRepository.countConfirmedByEventIds(events.stream()
+                .map(Event::getId)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Escapes the LIKE wildcards in {@code text} so it is matched literally with {@code ESCAPE '\'}.
+     */
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package ru.practicum.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Suppresses repeated views of a uri by the same ip within a sliding window. The window is
+ * split into {@code slices}, each a fixed-size open-addressing set of 64-bit (ip, uri)
+ * fingerprints that is replaced once its slice has passed, so memory stays at
+ * {@code slices * capacity * 8} bytes. A view is debounced if its fingerprint is in any slice
+ * still inside the window, so the effective window is between {@code window - window / slices}
+ * and {@code window}. When a slice is full, new views pass through rather than being lost.
+ *
+ * <p>The first view of every (ip, uri) in a window is always sent, so the distinct ips of a uri
+ * are unchanged; only ranges that begin inside a window can miss an ip whose view was debounced.
+ */
+public class HitDebouncer {
+    private static final int MAX_PROBES = 8;
+
+    private final long sliceNanos;
+    private final int slices;
+    private final int capacity;
+    private final AtomicReferenceArray<Slice> ring;
+    private final LongSupplier nanoTime;
+    private final LongAdder debounced = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    public HitDebouncer(Duration window, int slices, int capacity) {
+        this(window, slices, capacity, System::nanoTime);
+    }
+
+    HitDebouncer(Duration window, int slices, int capacity, LongSupplier nanoTime) {
+        if (slices < 1 || capacity < MAX_PROBES || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Debounce window must be positive, with at least one slice of "
+                                               + MAX_PROBES + " entries");
+        }
+        this.sliceNanos = Math.max(1, window.toNanos() / slices);
+        this.slices = slices;
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(slices);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Records a view and returns true if the same ip viewed the same uri within the window.
+     */
+    public boolean isRepeat(String ip, String uri) {
+        long fingerprint = fingerprint(ip, uri);
+        long epoch = Math.floorDiv(nanoTime.getAsLong(), sliceNanos);
+        for (long e = epoch - slices + 1; e < epoch; e++) {
+            Slice slice = ring.get(slot(e));
+            if (slice != null && slice.epoch == e && slice.contains(fingerprint)) {
+                debounced.increment();
+                return true;
+            }
+        }
+        Slice current = current(epoch);
+        if (current.contains(fingerprint)) {
+            debounced.increment();
+            return true;
+        }
+        if (!current.add(fingerprint)) {
+            overflowed.increment();
+        }
+        return false;
+    }
+
+    public long getDebouncedCount() {
+        return debounced.sum();
+    }
+
+    public long getOverflowCount() {
+        return overflowed.sum();
+    }
+
+    private Slice current(long epoch) {
+        int slot = slot(epoch);
+        Slice slice = ring.get(slot);
+        while (slice == null || slice.epoch < epoch) {
+            Slice fresh = new Slice(epoch, capacity);
+            if (ring.compareAndSet(slot, slice, fresh)) {
+                return fresh;
+            }
+            slice = ring.get(slot);
+        }
+        return slice;
+    }
+
+    private int slot(long epoch) {
+        return (int) Math.floorMod(epoch, (long) slices);
+    }
+
+    private static long fingerprint(String ip, String uri) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < uri.length(); i++) {
+            h = (h ^ uri.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ 0xFFFF) * 0x100000001b3L;
+        for (int i = 0; i < ip.length(); i++) {
+            h = (h ^ ip.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        // 0 marks an empty slot
+        return h == 0 ? 1 : h;
+    }
+
+    private static final class Slice {
+        private final long epoch;
+        private final AtomicLongArray fingerprints;
+
+        private Slice(long epoch, int capacity) {
+            this.epoch = epoch;
+            this.fingerprints = new AtomicLongArray(capacity);
+        }
+
+        private boolean contains(long fingerprint) {
+            int mask = fingerprints.length() - 1;
+            int index = (int) fingerprint & mask;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                long value = fingerprints.get((index + probe) & mask);
+                if (value == fingerprint) {
+                    return true;
+                }
+                if (value == 0) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns false if every slot the fingerprint may go to is taken by another one.
+         */
+        private boolean add(long fingerprint) {
+            int mask = fingerprints.length() - 1;
+            int index = (int) fingerprint & mask;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int slot = (index + probe) & mask;
+                long value = fingerprints.get(slot);
+                if (value == fingerprint
+                        || value == 0 && fingerprints.compareAndSet(slot, 0, fingerprint)
+                        || fingerprints.get(slot) == fingerprint) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
\ No newline at end of file
@@ -1,33 +1,194 @@
 package ru.practicum.service;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.practicum.config.StatsClientProperties;
+import ru.practicum.stats.client.AsyncHitSender;
+import ru.practicum.stats.client.Bulkhead;
+import ru.practicum.stats.client.CircuitBreaker;
+import ru.practicum.stats.client.HitSpool;
+import ru.practicum.stats.client.SingleFlightStatsFetcher;
 import ru.practicum.stats.client.StatsClient;
 import ru.practicum.stats.client.StatsClientConfig;
+import ru.practicum.stats.client.ViewStatsCache;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Slf4j
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class StatsService {
     final StatsClient statsClient;
+    final HitDebouncer hitDebouncer;
 
     public StatsService(@Value("${stats.server.url}") String serverUrl,
-                        @Value("${stats.app.name}") String appName) {
-        StatsClientConfig config = new StatsClientConfig(serverUrl, appName);
+                        @Value("${stats.app.name}") String appName,
+                        StatsClientProperties properties,
+                        MeterRegistry meterRegistry) {
+        StatsClientConfig config = StatsClientConfig.builder()
+                .serverUrl(serverUrl)
+                .appName(appName)
+                .asyncHits(properties.getHits().isAsync())
+                .hitQueueCapacity(properties.getHits().getQueueCapacity())
+                .hitBatchSize(properties.getHits().getBatchSize())
+                .hitFlushInterval(properties.getHits().getFlushInterval())
+                .hitOverflowPolicy(properties.getHits().getOverflowPolicy())
+                .binaryHits(properties.getHits().isBinary())
+                .hitIds(properties.getHits().isIds())
+                .connectTimeout(properties.getHttp().getConnectTimeout())
+                .readTimeout(properties.getHttp().getReadTimeout())
+                .maxConcurrentCalls(properties.getHttp().getMaxConcurrentCalls())
+                .coalesceRequests(properties.getHttp().isCoalesceRequests())
+                .asyncThreads(properties.getHttp().getAsyncThreads())
+                .asyncTimeout(properties.getHttp().getAsyncTimeout())
+                .circuitFailureThreshold(properties.getCircuitBreaker().getFailureThreshold())
+                .circuitOpenDuration(properties.getCircuitBreaker().getOpenDuration())
+                .cacheEnabled(properties.getCache().isEnabled())
+                .cacheMaximumSize(properties.getCache().getMaximumSize())
+                .cacheTtl(properties.getCache().getTtl())
+                .cacheRefreshAfter(properties.getCache().getRefreshAfter())
+                .cacheWindowGranularity(properties.getCache().getWindowGranularity())
+                .spoolDirectory(properties.getSpool().getDirectory())
+                .spoolSegmentBytes(properties.getSpool().getSegmentBytes())
+                .spoolMaxBytes(properties.getSpool().getMaxBytes())
+                .spoolReplayInterval(properties.getSpool().getReplayInterval())
+                .build();
         this.statsClient = new StatsClient(config);
+        statsClient.getHitSender().ifPresent(sender -> bindHitSenderMetrics(sender, meterRegistry));
+        statsClient.getHitSpool().ifPresent(spool -> bindSpoolMetrics(spool, meterRegistry));
+        bindResilienceMetrics(statsClient.getCircuitBreaker(), statsClient.getBulkhead(), meterRegistry);
+        statsClient.getSingleFlight().ifPresent(singleFlight -> FunctionCounter
+                .builder("stats.client.requests.coalesced", singleFlight, SingleFlightStatsFetcher::getCoalescedCount)
+                .register(meterRegistry));
+        statsClient.getViewStatsCache().ifPresent(cache -> bindCacheMetrics(cache, meterRegistry));
+        StatsClientProperties.Debounce debounce = properties.getDebounce();
+        this.hitDebouncer = debounce.isEnabled()
+                ? new HitDebouncer(debounce.getWindow(), debounce.getSlices(), debounce.getCapacity())
+                : null;
+        if (hitDebouncer != null) {
+            FunctionCounter.builder("stats.client.hits.debounced", hitDebouncer, HitDebouncer::getDebouncedCount)
+                    .register(meterRegistry);
+            FunctionCounter.builder("stats.client.hits.debounce.overflow", hitDebouncer,
+                            HitDebouncer::getOverflowCount)
+                    .register(meterRegistry);
+        }
     }
 
-    public void saveHit(String uri, String ip) {
+    /**
+     * Sends a hit unless debouncing is enabled and the same ip hit the same uri within the window.
+     * Returns false if the hit was debounced. True only means the hit was handed to the client,
+     * which spools or logs a hit it cannot send; delivery itself is not reported.
+     */
+    public boolean saveHit(String uri, String ip) {
+        if (hitDebouncer != null && uri != null && ip != null && hitDebouncer.isRepeat(ip, uri)) {
+            return false;
+        }
         statsClient.hit(uri, ip, LocalDateTime.now());
+        return true;
+    }
+
+    /**
+     * Non-blocking variant of {@link #saveHit}: starts sending the hit without waiting for it and
+     * returns false at once if the hit was debounced.
+     */
+    public boolean saveHitAsync(String uri, String ip) {
+        if (hitDebouncer != null && uri != null && ip != null && hitDebouncer.isRepeat(ip, uri)) {
+            return false;
+        }
+        statsClient.hitAsync(uri, ip, LocalDateTime.now());
+        return true;
     }
 
     public List<ru.practicum.stats.dto.ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
-        return statsClient.getStats(start, end, uris, unique);
+        return statsClient.queryStats(start, end, uris, unique);
+    }
+
+    public CompletableFuture<List<ru.practicum.stats.dto.ViewStats>> getStatsAsync(LocalDateTime start,
+                                                                                LocalDateTime end,
+                                                                                List<String> uris,
+                                                                                Boolean unique) {
+        return statsClient.getStatsAsync(start, end, uris, unique);
+    }
+
+    @PreDestroy
+    public void close() {
+        statsClient.close();
+    }
+
+    private void bindHitSenderMetrics(AsyncHitSender sender, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("stats.client.hits.enqueued", sender, AsyncHitSender::getEnqueuedCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.client.hits.sent", sender, AsyncHitSender::getSentCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.client.hits.dropped", sender, AsyncHitSender::getDroppedCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.client.hits.failed", sender, AsyncHitSender::getFailedCount)
+                .register(meterRegistry);
+        Gauge.builder("stats.client.hits.queue.size", sender, AsyncHitSender::getQueueSize)
+                .register(meterRegistry);
+        Gauge.builder("stats.client.hits.flush.latency.last", sender, s -> s.getLastFlushLatencyNanos() / 1_000_000.0)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("stats.client.hits.flush.latency.max", sender, s -> s.getMaxFlushLatencyNanos() / 1_000_000.0)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    private void bindSpoolMetrics(HitSpool spool, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("stats.client.spool.spooled", spool, HitSpool::getSpooledHitCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.client.spool.replayed", spool, HitSpool::getReplayedHitCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.client.spool.dropped", spool, HitSpool::getDroppedHitCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.client.spool.corrupt", spool, HitSpool::getCorruptRecordCount)
+                .register(meterRegistry);
+        Gauge.builder("stats.client.spool.pending.hits", spool, HitSpool::getPendingHits)
+                .register(meterRegistry);
+        Gauge.builder("stats.client.spool.pending.bytes", spool, HitSpool::getPendingBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("stats.client.spool.segments", spool, HitSpool::getSegmentCount)
+                .register(meterRegistry);
+    }
+
+    private void bindResilienceMetrics(CircuitBreaker circuitBreaker, Bulkhead bulkhead, MeterRegistry meterRegistry) {
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            FunctionCounter.builder("stats.client.circuit.transitions", circuitBreaker,
+                            cb -> cb.getTransitionCount(state))
+                    .tag("to", state.name())
+                    .register(meterRegistry);
+            Gauge.builder("stats.client.circuit.state", circuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+                    .tag("state", state.name())
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("stats.client.circuit.rejected", circuitBreaker, CircuitBreaker::getRejectedCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.client.bulkhead.rejected", bulkhead, Bulkhead::getRejectedCount)
+                .register(meterRegistry);
+        Gauge.builder("stats.client.bulkhead.active", bulkhead, Bulkhead::getActiveCalls)
+                .register(meterRegistry);
+    }
+
+    private void bindCacheMetrics(ViewStatsCache cache, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("stats.client.cache.hits", cache, c -> c.stats().hitCount())
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.client.cache.misses", cache, c -> c.stats().missCount())
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.client.cache.evictions", cache, c -> c.stats().evictionCount())
+                .register(meterRegistry);
+        Gauge.builder("stats.client.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .register(meterRegistry);
+        Gauge.builder("stats.client.cache.size", cache, ViewStatsCache::size)
+                .register(meterRegistry);
     }
 }
\ No newline at end of file
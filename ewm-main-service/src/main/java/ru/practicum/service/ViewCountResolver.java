@@ -0,0 +1,80 @@
+package ru.practicum.service;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.model.Event;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class ViewCountResolver {
+    private static final String EVENT_URI_PREFIX = "/events/";
+
+    StatsService statsService;
+
+    public Map<Long, Long> resolve(Collection<Event> events) {
+        return resolveByIds(events.stream()
+                .map(Event::getId)
+                .collect(Collectors.toSet()));
+    }
+
+    public Map<Long, Long> resolveByIds(Collection<Long> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Long> idsByUri = new HashMap<>();
+        for (Long id : eventIds) {
+            idsByUri.put(EVENT_URI_PREFIX + id, id);
+        }
+
+        Map<Long, Long> views = new HashMap<>();
+        try {
+            LocalDateTime start = LocalDateTime.now().minusYears(1);
+            LocalDateTime end = LocalDateTime.now().plusYears(1);
+            List<ViewStats> stats = statsService.getStats(start, end, List.copyOf(idsByUri.keySet()), false);
+            for (ViewStats viewStats : stats) {
+                Long id = viewStats == null ? null : idsByUri.get(viewStats.getUri());
+                if (id != null && viewStats.getHits() != null) {
+                    views.putIfAbsent(id, viewStats.getHits());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Error getting stats: {}", e.getMessage());
+        }
+        return views;
+    }
+
+    public Long resolve(Long eventId) {
+        return resolveByIds(List.of(eventId)).getOrDefault(eventId, 0L);
+    }
+
+    /**
+     * Starts fetching the views of one event without blocking, so the caller can run its own
+     * queries meanwhile. Yields 0 if the statistics service could not be reached.
+     */
+    public CompletableFuture<Long> resolveAsync(Long eventId) {
+        String uri = EVENT_URI_PREFIX + eventId;
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+        LocalDateTime end = LocalDateTime.now().plusYears(1);
+        return statsService.getStatsAsync(start, end, List.of(uri), false)
+                .thenApply(stats -> stats.stream()
+                        .filter(viewStats -> viewStats != null && uri.equals(viewStats.getUri())
+                                && viewStats.getHits() != null)
+                        .map(ViewStats::getHits)
+                        .findFirst()
+                        .orElse(0L));
+    }
+}
@@ -67,4 +67,6 @@ CREATE INDEX IF NOT EXISTS idx_requests_requester ON requests(requester_id);
 CREATE INDEX IF NOT EXISTS idx_requests_status ON requests(status);
 CREATE INDEX IF NOT EXISTS idx_comments_event ON comments(event_id);
 CREATE INDEX IF NOT EXISTS idx_comments_author ON comments(author_id);
-CREATE INDEX IF NOT EXISTS idx_comments_status ON comments(status);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_comments_status ON comments(status);
+CREATE INDEX IF NOT EXISTS idx_events_published_event_date ON events(event_date) WHERE state = 'PUBLISHED';
+CREATE INDEX IF NOT EXISTS idx_events_published_category_event_date ON events(category_id, event_date) WHERE state = 'PUBLISHED';
@@ -0,0 +1,95 @@
+package ru.practicum.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import ru.practicum.dto.EventShortDto;
+import ru.practicum.model.Category;
+import ru.practicum.model.Event;
+import ru.practicum.model.EventState;
+import ru.practicum.model.Location;
+import ru.practicum.model.Request;
+import ru.practicum.model.RequestStatus;
+import ru.practicum.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@Import({EventService.class, ViewCountResolver.class})
+class EventServiceQueryCountTest {
+    private static final int EVENTS = 60;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private StatsService statsService;
+
+    @BeforeEach
+    void setUp() {
+        User initiator = entityManager.persist(new User(null, "initiator@example.com", "initiator"));
+        User requester = entityManager.persist(new User(null, "requester@example.com", "requester"));
+        Category category = entityManager.persist(new Category(null, "concerts"));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < EVENTS; i++) {
+            Event event = entityManager.persist(new Event(null, "annotation " + i, category, "description " + i,
+                    now.plusDays(i + 1), new Location(55.75f, 37.62f), false, 10, true, "title " + i,
+                    EventState.PUBLISHED, initiator, now, now));
+            if (i % 2 == 0) {
+                entityManager.persist(new Request(null, event, requester, RequestStatus.CONFIRMED, now));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void getPublicEventsRunsTheSameStatementsForAnyPageSize() {
+        long onePage = statementsFor(1);
+        long fiftyPage = statementsFor(50);
+
+        // the page of events with initiators and categories, then the confirmed request counts
+        assertEquals(2, onePage);
+        assertEquals(onePage, fiftyPage);
+    }
+
+    @Test
+    void getPublicEventsStartsAtAnyOffset() {
+        List<EventShortDto> events = eventService.getPublicEvents(null, null, null, null, null,
+                false, "EVENT_DATE", 5, 10, "/events", "127.0.0.1");
+
+        assertEquals(IntStream.range(5, 15).mapToObj(i -> "title " + i).toList(),
+                events.stream().map(EventShortDto::getTitle).toList());
+    }
+
+    private long statementsFor(int size) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<EventShortDto> events = eventService.getPublicEvents(null, null, null, null, null,
+                false, "EVENT_DATE", 0, size, "/events", "127.0.0.1");
+
+        assertEquals(size, events.size());
+        return statistics.getPrepareStatementCount();
+    }
+}
\ No newline at end of file
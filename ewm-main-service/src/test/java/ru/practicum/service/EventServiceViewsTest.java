@@ -0,0 +1,131 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.config.StatsClientProperties;
+import ru.practicum.model.Category;
+import ru.practicum.model.Event;
+import ru.practicum.model.EventState;
+import ru.practicum.model.Location;
+import ru.practicum.model.RequestStatus;
+import ru.practicum.model.User;
+import ru.practicum.repository.CategoryRepository;
+import ru.practicum.repository.EventRepository;
+import ru.practicum.repository.RequestRepository;
+import ru.practicum.repository.UserRepository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EventServiceViewsTest {
+    private static final long EVENT_ID = 1L;
+    private static final String URI = "/events/1";
+    private static final String IP = "10.0.0.1";
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private RequestRepository requestRepository;
+
+    @Mock
+    private StatsService statsService;
+
+    @Mock
+    private ViewCountResolver viewCountResolver;
+
+    @InjectMocks
+    private EventService eventService;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        Event event = new Event(EVENT_ID, "annotation", new Category(1L, "concerts"), "description",
+                now.plusDays(1), new Location(55.75f, 37.62f), false, 0, true, "title",
+                EventState.PUBLISHED, new User(1L, "initiator@example.com", "initiator"), now, now);
+        when(eventRepository.findById(EVENT_ID)).thenReturn(Optional.of(event));
+        when(requestRepository.countByEventIdAndStatus(EVENT_ID, RequestStatus.CONFIRMED)).thenReturn(0L);
+    }
+
+    @Test
+    void sentHitCountsAsAView() {
+        when(viewCountResolver.resolveAsync(EVENT_ID)).thenReturn(CompletableFuture.completedFuture(5L));
+        when(statsService.saveHitAsync(URI, IP)).thenReturn(true);
+
+        assertEquals(6L, eventService.getPublicEvent(EVENT_ID, URI, IP).getViews());
+    }
+
+    @Test
+    void debouncedHitDoesNotCountAsAView() {
+        when(viewCountResolver.resolveAsync(EVENT_ID)).thenReturn(CompletableFuture.completedFuture(5L));
+        when(statsService.saveHitAsync(URI, IP)).thenReturn(false);
+
+        assertEquals(5L, eventService.getPublicEvent(EVENT_ID, URI, IP).getViews());
+    }
+
+    @Test
+    void hitIsSentWhileTheViewsAreStillBeingRead() {
+        CompletableFuture<Long> views = new CompletableFuture<Long>().completeOnTimeout(5L, 5, TimeUnit.SECONDS);
+        AtomicBoolean viewsPendingAtHit = new AtomicBoolean();
+        when(viewCountResolver.resolveAsync(EVENT_ID)).thenReturn(views);
+        when(statsService.saveHitAsync(URI, IP)).thenAnswer(invocation -> {
+            viewsPendingAtHit.set(!views.isDone());
+            views.complete(5L);
+            return true;
+        });
+
+        assertEquals(6L, eventService.getPublicEvent(EVENT_ID, URI, IP).getViews());
+        assertTrue(viewsPendingAtHit.get());
+    }
+
+    @Test
+    void hitTheStatsServerRefusesIsSpooledAndStillCountsAsAView(@TempDir Path spool) {
+        StatsClientProperties properties = new StatsClientProperties();
+        properties.getSpool().setDirectory(spool);
+        properties.getSpool().setReplayInterval(Duration.ofMinutes(1));
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // nothing listens on port 1, so every request fails with a refused connection
+        StatsService unreachable = new StatsService("http://localhost:1", "ewm-main-service", properties,
+                meterRegistry);
+        try {
+            when(viewCountResolver.resolveAsync(EVENT_ID)).thenReturn(CompletableFuture.completedFuture(5L));
+            EventService service = new EventService(eventRepository, userRepository, categoryRepository,
+                    requestRepository, unreachable, viewCountResolver);
+
+            assertEquals(6L, service.getPublicEvent(EVENT_ID, URI, IP).getViews());
+
+            Gauge pending = meterRegistry.get("stats.client.spool.pending.hits").gauge();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (pending.value() < 1 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertEquals(1.0, pending.value());
+        } finally {
+            unreachable.close();
+        }
+    }
+}
\ No newline at end of file
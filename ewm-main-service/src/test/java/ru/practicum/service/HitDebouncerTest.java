@@ -0,0 +1,95 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitDebouncerTest {
+    private static final Duration WINDOW = Duration.ofSeconds(60);
+    private static final int SLICES = 6;
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void repeatedViewWithinTheWindowIsDebounced() {
+        HitDebouncer debouncer = debouncer(1024);
+
+        assertFalse(debouncer.isRepeat("10.0.0.1", "/events/1"));
+        assertTrue(debouncer.isRepeat("10.0.0.1", "/events/1"));
+        assertFalse(debouncer.isRepeat("10.0.0.2", "/events/1"));
+        assertFalse(debouncer.isRepeat("10.0.0.1", "/events/2"));
+        assertEquals(1, debouncer.getDebouncedCount());
+    }
+
+    @Test
+    void viewIsRememberedForAtLeastTheWindowMinusOneSlice() {
+        HitDebouncer debouncer = debouncer(1024);
+        debouncer.isRepeat("10.0.0.1", "/events/1");
+
+        advance(Duration.ofSeconds(55));
+        assertTrue(debouncer.isRepeat("10.0.0.1", "/events/1"));
+
+        advance(Duration.ofSeconds(5));
+        assertFalse(debouncer.isRepeat("10.0.0.1", "/events/1"));
+    }
+
+    @Test
+    void rotatedSliceForgetsItsViewsButKeepsNewOnes() {
+        HitDebouncer debouncer = debouncer(1024);
+        debouncer.isRepeat("10.0.0.1", "/events/1");
+
+        // one full window later the first slice's slot in the ring is reused
+        advance(WINDOW);
+        assertFalse(debouncer.isRepeat("10.0.0.2", "/events/1"));
+        advance(Duration.ofSeconds(1));
+
+        assertFalse(debouncer.isRepeat("10.0.0.1", "/events/1"));
+        assertTrue(debouncer.isRepeat("10.0.0.2", "/events/1"));
+    }
+
+    @Test
+    void staleSlicesAreIgnoredAfterALongPause() {
+        HitDebouncer debouncer = debouncer(1024);
+        debouncer.isRepeat("10.0.0.1", "/events/1");
+
+        advance(Duration.ofMinutes(10));
+
+        assertFalse(debouncer.isRepeat("10.0.0.1", "/events/1"));
+    }
+
+    @Test
+    void viewsPassThroughOnceTheSliceIsFull() {
+        HitDebouncer debouncer = debouncer(8);
+        for (int i = 0; i < 20; i++) {
+            assertFalse(debouncer.isRepeat("10.0.0." + i, "/events/1"));
+        }
+
+        assertEquals(12, debouncer.getOverflowCount());
+        int debounced = 0;
+        for (int i = 0; i < 20; i++) {
+            if (debouncer.isRepeat("10.0.0." + i, "/events/1")) {
+                debounced++;
+            }
+        }
+        assertEquals(8, debounced);
+    }
+
+    @Test
+    void rejectsAnEmptyWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new HitDebouncer(Duration.ZERO, SLICES, 1024));
+    }
+
+    private HitDebouncer debouncer(int capacity) {
+        return new HitDebouncer(WINDOW, SLICES, capacity, now::get);
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,247 @@
+package ru.practicum.stats.client;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.stats.dto.EndpointHit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Buffers hits in a bounded lock-free queue and sends them in batches from a single
+ * background thread, either when {@code batchSize} hits are waiting or when the flush
+ * interval elapses. Callers only pay for the enqueue.
+ *
+ * <p>When the server asks to back off ({@link StatsBackoffException}) nothing is sent until the
+ * requested delay has passed; meanwhile the queue absorbs new hits and the overflow policy
+ * applies once it is full. The batch that was turned away, like one that failed, is written to
+ * the {@link HitSpool} if there is one, and otherwise put back into the queue or dropped.
+ *
+ * <p>{@link #close()} sends what is queued and spools the rest. Hits enqueued after that go
+ * straight to the spool, or are counted as dropped if there is none.
+ */
+@Slf4j
+public class AsyncHitSender implements AutoCloseable {
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private final Queue<EndpointHit> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final HitOverflowPolicy overflowPolicy;
+    private final Consumer<List<EndpointHit>> sink;
+    private final HitSpool spool;
+    private final Thread flusher;
+    private final Object drainLock = new Object();
+    private volatile boolean running = true;
+    private boolean drained;
+    private volatile long resumeAtNanos = System.nanoTime();
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder backoffs = new LongAdder();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    public AsyncHitSender(StatsClientConfig config, Consumer<List<EndpointHit>> sink, HitSpool spool) {
+        this.capacity = config.getHitQueueCapacity();
+        this.batchSize = config.getHitBatchSize();
+        this.flushIntervalNanos = config.getHitFlushInterval().toNanos();
+        this.overflowPolicy = config.getHitOverflowPolicy();
+        this.sink = sink;
+        this.spool = spool;
+        this.flusher = new Thread(this::flushLoop, "stats-hit-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public void enqueue(EndpointHit hit) {
+        if (!running) {
+            spoolOrDrop(List.of(hit));
+            return;
+        }
+        while (!tryReserve()) {
+            if (!running) {
+                spoolOrDrop(List.of(hit));
+                return;
+            }
+            if (overflowPolicy == HitOverflowPolicy.DROP_OLDEST) {
+                if (queue.poll() != null) {
+                    size.decrementAndGet();
+                    dropped.increment();
+                }
+            } else {
+                LockSupport.unpark(flusher);
+                LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+            }
+        }
+        queue.offer(hit);
+        enqueued.increment();
+        if (!running) {
+            // close() may have drained the queue between the check above and the offer
+            synchronized (drainLock) {
+                if (drained) {
+                    drainRemaining();
+                }
+            }
+        } else if (size.get() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.sum();
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getBackoffCount() {
+        return backoffs.sum();
+    }
+
+    public int getQueueSize() {
+        return size.get();
+    }
+
+    public long getLastFlushLatencyNanos() {
+        return lastFlushNanos.get();
+    }
+
+    public long getMaxFlushLatencyNanos() {
+        return maxFlushNanos.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void flushLoop() {
+        while (running) {
+            long pauseNanos = resumeAtNanos - System.nanoTime();
+            if (pauseNanos > 0) {
+                LockSupport.parkNanos(this, pauseNanos);
+                continue;
+            }
+            if (size.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flush();
+        }
+        boolean flushed = true;
+        while (flushed && size.get() > 0) {
+            flushed = flush();
+        }
+        synchronized (drainLock) {
+            drainRemaining();
+            drained = true;
+        }
+    }
+
+    private void drainRemaining() {
+        List<EndpointHit> remaining = new ArrayList<>(size.get());
+        EndpointHit hit;
+        while ((hit = queue.poll()) != null) {
+            size.decrementAndGet();
+            remaining.add(hit);
+        }
+        if (!remaining.isEmpty()) {
+            spoolOrDrop(remaining);
+        }
+    }
+
+    private void spoolOrDrop(List<EndpointHit> hits) {
+        if (spool == null || !spool.append(hits)) {
+            dropped.add(hits.size());
+        }
+    }
+
+    private boolean flush() {
+        List<EndpointHit> batch = new ArrayList<>(Math.min(size.get(), batchSize));
+        EndpointHit hit;
+        while (batch.size() < batchSize && (hit = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(hit);
+        }
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            sink.accept(batch);
+            sent.add(batch.size());
+        } catch (StatsBackoffException e) {
+            backoffs.increment();
+            resumeAtNanos = System.nanoTime() + e.getRetryAfter().toNanos();
+            if (spool == null || !spool.append(batch)) {
+                requeue(batch);
+            }
+            log.debug("Statistics service asked to back off for {}", e.getRetryAfter());
+            return false;
+        } catch (Exception e) {
+            if (spool != null && spool.append(batch)) {
+                log.debug("Spooled {} hits after failing to send them: {}", batch.size(), e.getMessage());
+            } else {
+                failed.add(batch.size());
+                log.warn("Failed to send {} hits to statistics service: {}", batch.size(), e.getMessage());
+            }
+        }
+        recordLatency(startNanos);
+        return true;
+    }
+
+    private void requeue(List<EndpointHit> batch) {
+        for (EndpointHit hit : batch) {
+            if (tryReserve()) {
+                queue.offer(hit);
+            } else {
+                dropped.increment();
+            }
+        }
+    }
+
+    private void recordLatency(long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        lastFlushNanos.set(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package ru.practicum.stats.client;
+
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@FunctionalInterface
+public interface AsyncStatsFetcher {
+    CompletableFuture<List<ViewStats>> fetchAsync(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                  boolean unique);
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package ru.practicum.stats.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of concurrent calls to the stats server and rejects the excess
+ * immediately instead of letting request threads queue up behind a slow server.
+ */
+public class Bulkhead {
+    private final Semaphore permits;
+    private final int maxConcurrentCalls;
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new StatsCallRejectedException("Too many concurrent calls to statistics service");
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Same as {@link #execute} for a call that completes later; the permit is held until the
+     * returned future completes.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(
+                    new StatsCallRejectedException("Too many concurrent calls to statistics service"));
+        }
+        try {
+            return call.get().whenComplete((result, error) -> permits.release());
+        } catch (RuntimeException e) {
+            permits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public int getActiveCalls() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package ru.practicum.stats.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Opens after {@code failureThreshold} consecutive failures and rejects calls for
+ * {@code openDuration}; then lets a single trial call through and closes again if it succeeds.
+ */
+@Slf4j
+public class CircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private enum Permission {
+        DENIED,
+        GRANTED,
+        TRIAL
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final Predicate<RuntimeException> recordFailure;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private volatile long openedAtNanos;
+
+    private final Map<State, LongAdder> transitions = new EnumMap<>(State.class);
+    private final LongAdder rejected = new LongAdder();
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Predicate<RuntimeException> recordFailure) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.recordFailure = recordFailure;
+        for (State s : State.values()) {
+            transitions.put(s, new LongAdder());
+        }
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        Permission permission = tryAcquirePermission();
+        if (permission == Permission.DENIED) {
+            rejected.increment();
+            throw new StatsCallRejectedException("Circuit breaker for statistics service is open");
+        }
+        try {
+            T result = call.get();
+            record(null);
+            return result;
+        } catch (RuntimeException e) {
+            record(e);
+            throw e;
+        } finally {
+            release(permission);
+        }
+    }
+
+    /**
+     * Same as {@link #execute} for a call that completes later; the outcome is recorded when the
+     * returned future completes. Checked failures such as I/O errors and timeouts count as failures.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        Permission permission = tryAcquirePermission();
+        if (permission == Permission.DENIED) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(
+                    new StatsCallRejectedException("Circuit breaker for statistics service is open"));
+        }
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        } catch (Error e) {
+            release(permission);
+            throw e;
+        }
+        return future.whenComplete((result, error) -> {
+            try {
+                record(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error);
+            } finally {
+                release(permission);
+            }
+        });
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public long getTransitionCount(State to) {
+        return transitions.get(to).sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private Permission tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return Permission.GRANTED;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openDurationNanos) {
+                return Permission.DENIED;
+            }
+            transition(State.OPEN, State.HALF_OPEN);
+        }
+        return trialInFlight.compareAndSet(false, true) ? Permission.TRIAL : Permission.DENIED;
+    }
+
+    /**
+     * Frees the trial slot if this call held it, however the call ended, so an error thrown by
+     * the call cannot leave the breaker half open with no trial ever allowed again.
+     */
+    private void release(Permission permission) {
+        if (permission == Permission.TRIAL) {
+            trialInFlight.set(false);
+        }
+    }
+
+    /**
+     * Records the outcome of a call that ended with {@code error}, or succeeded if it is null.
+     * A call rejected by a downstream limit says nothing about the service and is not recorded.
+     */
+    private void record(Throwable error) {
+        if (error instanceof StatsCallRejectedException) {
+            return;
+        }
+        if (error == null || error instanceof RuntimeException e && !recordFailure.test(e)) {
+            onSuccess();
+        } else {
+            onFailure();
+        }
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.get() == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.CLOSED);
+        }
+    }
+
+    private void onFailure() {
+        if (state.get() == State.HALF_OPEN) {
+            openedAtNanos = System.nanoTime();
+            transition(State.HALF_OPEN, State.OPEN);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAtNanos = System.nanoTime();
+            transition(State.CLOSED, State.OPEN);
+        }
+    }
+
+    private void transition(State from, State to) {
+        if (state.compareAndSet(from, to)) {
+            transitions.get(to).increment();
+            log.info("Statistics service circuit breaker: {} -> {}", from, to);
+        }
+    }
+}
\ No newline at end of file
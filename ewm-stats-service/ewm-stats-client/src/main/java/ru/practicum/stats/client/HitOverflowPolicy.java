@@ -0,0 +1,6 @@
+package ru.practicum.stats.client;
+
+public enum HitOverflowPolicy {
+    DROP_OLDEST,
+    BLOCK
+}
\ No newline at end of file
@@ -0,0 +1,503 @@
+package ru.practicum.stats.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+import ru.practicum.stats.dto.EndpointHit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only spool for hit batches that could not be delivered. Batches are written as
+ * length-prefixed, CRC32-checked records to segment files of at most {@code segmentBytes} and
+ * forced to disk before {@link #append} returns. A background thread replays them in order
+ * through {@code sink}, records its position in a checkpoint file after every delivered batch
+ * and deletes segments it has finished.
+ *
+ * <p>On startup a torn or corrupt record ends its segment: the file is truncated there, so a
+ * crash in the middle of an append loses at most that batch. Delivery is at least once: a batch
+ * sent just before a crash is replayed again. A batch the server rejects with a 4xx is dropped
+ * and counted, since retrying cannot succeed; transport errors, 5xx and back-off are retried.
+ * When the spool grows beyond {@code maxBytes} the oldest segments are deleted.
+ */
+@Slf4j
+public class HitSpool implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "hits-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CHECKPOINT = "replay.checkpoint";
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxBytes;
+    private final long replayIntervalNanos;
+    private final Consumer<List<EndpointHit>> sink;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final Thread replayer;
+    private FileChannel writer;
+    private volatile boolean running = true;
+
+    private final LongAdder spooled = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder corrupt = new LongAdder();
+
+    public HitSpool(StatsClientConfig config, Consumer<List<EndpointHit>> sink) {
+        this.directory = config.getSpoolDirectory();
+        this.segmentBytes = config.getSpoolSegmentBytes();
+        this.maxBytes = config.getSpoolMaxBytes();
+        this.replayIntervalNanos = config.getSpoolReplayInterval().toNanos();
+        this.sink = sink;
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open hit spool in " + directory, e);
+        }
+        this.replayer = new Thread(this::replayLoop, "stats-hit-replayer");
+        this.replayer.setDaemon(true);
+        this.replayer.start();
+    }
+
+    /**
+     * Writes {@code hits} to disk for later delivery. Returns false if they could not be stored.
+     */
+    public boolean append(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return true;
+        }
+        byte[] payload = encode(hits);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt(crc(payload))
+                .put(payload)
+                .flip();
+        synchronized (this) {
+            if (!running) {
+                dropped.add(hits.size());
+                return false;
+            }
+            Segment tail = segments.getLast();
+            try {
+                if (tail.sealed || tail.size > 0 && tail.size + record.remaining() > segmentBytes) {
+                    tail = roll(tail.id + 1);
+                }
+                while (record.hasRemaining()) {
+                    writer.write(record);
+                }
+                writer.force(false);
+            } catch (IOException e) {
+                discardPartialRecord(tail);
+                dropped.add(hits.size());
+                log.warn("Failed to spool {} hits: {}", hits.size(), e.getMessage());
+                return false;
+            }
+            tail.size += HEADER_BYTES + payload.length;
+            tail.pendingBatches++;
+            tail.pendingHits += hits.size();
+            spooled.add(hits.size());
+            try {
+                enforceLimit();
+            } catch (IOException e) {
+                log.warn("Failed to delete old hit spool segments: {}", e.getMessage());
+            }
+        }
+        LockSupport.unpark(replayer);
+        return true;
+    }
+
+    public long getSpooledHitCount() {
+        return spooled.sum();
+    }
+
+    public long getReplayedHitCount() {
+        return replayed.sum();
+    }
+
+    public long getDroppedHitCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Hits dropped because the server answered their batch with a client error other than 429.
+     */
+    public long getRejectedHitCount() {
+        return rejected.sum();
+    }
+
+    public long getCorruptRecordCount() {
+        return corrupt.sum();
+    }
+
+    public synchronized long getPendingBytes() {
+        return segments.stream().mapToLong(s -> s.size - s.readOffset).sum();
+    }
+
+    public synchronized long getPendingBatches() {
+        return segments.stream().mapToLong(s -> s.pendingBatches).sum();
+    }
+
+    public synchronized long getPendingHits() {
+        return segments.stream().mapToLong(s -> s.pendingHits).sum();
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(replayer);
+        try {
+            replayer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Failed to close hit spool: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        long[] checkpoint = readCheckpoint();
+        for (Path file : files) {
+            Segment segment = new Segment(segmentId(file), file);
+            if (segment.id < checkpoint[0]) {
+                Files.delete(file);
+                continue;
+            }
+            scan(segment, segment.id == checkpoint[0] ? checkpoint[1] : 0);
+            segments.addLast(segment);
+        }
+        if (segments.isEmpty()) {
+            roll(checkpoint[0] + 1);
+        } else {
+            writer = FileChannel.open(segments.getLast().path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        long pending = segments.stream().mapToLong(s -> s.pendingBatches).sum();
+        if (pending > 0) {
+            log.info("Hit spool has {} undelivered batches", pending);
+        }
+    }
+
+    /**
+     * Validates the records of {@code segment}, truncating it at the first one that is torn or
+     * corrupt, and counts those after {@code readOffset}.
+     */
+    private void scan(Segment segment, long readOffset) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.path,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long length = channel.size();
+            while (position < length) {
+                byte[] payload = readRecord(channel, position);
+                if (payload == null) {
+                    corrupt.increment();
+                    log.warn("Truncating hit spool segment {} at {} of {} bytes", segment.path, position, length);
+                    channel.truncate(position);
+                    channel.force(true);
+                    break;
+                }
+                position += HEADER_BYTES + payload.length;
+                if (position > readOffset) {
+                    segment.pendingBatches++;
+                    // the payload starts with its hit count
+                    segment.pendingHits += ByteBuffer.wrap(payload).getInt();
+                }
+            }
+            segment.size = position;
+            segment.readOffset = Math.min(readOffset, position);
+        }
+    }
+
+    private void replayLoop() {
+        while (running) {
+            Pending next;
+            try {
+                next = next();
+            } catch (IOException e) {
+                log.warn("Failed to read hit spool: {}", e.getMessage());
+                LockSupport.parkNanos(this, replayIntervalNanos);
+                continue;
+            }
+            if (next == null) {
+                LockSupport.parkNanos(this, replayIntervalNanos);
+                continue;
+            }
+            try {
+                sink.accept(next.hits);
+                commit(next);
+                replayed.add(next.hits.size());
+            } catch (StatsBackoffException e) {
+                LockSupport.parkNanos(this, e.getRetryAfter().toNanos());
+            } catch (HttpClientErrorException e) {
+                reject(next, e);
+            } catch (Exception e) {
+                log.debug("Hit spool replay paused: {}", e.getMessage());
+                LockSupport.parkNanos(this, replayIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Skips a batch the server refused as invalid: sending it again would fail the same way and
+     * hold up every batch spooled after it.
+     */
+    private void reject(Pending next, HttpClientErrorException e) {
+        rejected.add(next.hits.size());
+        log.warn("Statistics service rejected {} spooled hits with {}, dropping them", next.hits.size(),
+                e.getStatusCode().value());
+        try {
+            commit(next);
+        } catch (IOException commitFailure) {
+            log.warn("Failed to checkpoint hit spool: {}", commitFailure.getMessage());
+        }
+    }
+
+    private synchronized Pending next() throws IOException {
+        while (!segments.isEmpty()) {
+            Segment head = segments.getFirst();
+            if (head.readOffset < head.size) {
+                try (FileChannel channel = FileChannel.open(head.path, StandardOpenOption.READ)) {
+                    byte[] payload = readRecord(channel, head.readOffset);
+                    List<EndpointHit> hits = payload == null ? null : decode(payload);
+                    if (hits != null) {
+                        return new Pending(head, head.readOffset + HEADER_BYTES + payload.length, hits);
+                    }
+                }
+                corrupt.increment();
+                log.warn("Skipping the rest of hit spool segment {} after a corrupt record", head.path);
+                dropped.add(head.pendingHits);
+                head.readOffset = head.size;
+                head.pendingBatches = 0;
+                head.pendingHits = 0;
+                continue;
+            }
+            if (segments.size() == 1) {
+                return null;
+            }
+            segments.removeFirst();
+            Files.deleteIfExists(head.path);
+        }
+        return null;
+    }
+
+    private synchronized void commit(Pending delivered) throws IOException {
+        Segment segment = delivered.segment;
+        if (segments.peekFirst() != segment) {
+            // deleted by the size limit while the batch was in flight
+            return;
+        }
+        segment.readOffset = delivered.nextOffset;
+        segment.pendingBatches--;
+        segment.pendingHits -= delivered.hits.size();
+        writeCheckpoint(segment.id, segment.readOffset);
+    }
+
+    /**
+     * Cuts what a failed append left behind off the end of {@code tail}, so the next record
+     * follows the last good one instead of a torn one that would truncate the segment on the
+     * next start. If that fails too, the next append starts a new segment.
+     */
+    private void discardPartialRecord(Segment tail) {
+        try {
+            if (writer.size() > tail.size) {
+                writer.truncate(tail.size);
+                writer.force(false);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to truncate hit spool segment {}: {}", tail.path.getFileName(), e.getMessage());
+            tail.sealed = true;
+        }
+    }
+
+    private Segment roll(long id) throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        Segment segment = new Segment(id, path);
+        writer = FileChannel.open(segment.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private void enforceLimit() throws IOException {
+        long total = segments.stream().mapToLong(s -> s.size).sum();
+        while (total > maxBytes && segments.size() > 1) {
+            Segment oldest = segments.removeFirst();
+            total -= oldest.size;
+            dropped.add(oldest.pendingHits);
+            Files.deleteIfExists(oldest.path);
+            log.warn("Hit spool exceeds {} bytes, dropped segment {} with {} undelivered hits",
+                    maxBytes, oldest.path.getFileName(), oldest.pendingHits);
+        }
+    }
+
+    private long[] readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return new long[]{0, 0};
+        }
+        String[] parts = Files.readString(file, StandardCharsets.UTF_8).trim().split(" ");
+        try {
+            return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (RuntimeException e) {
+            log.warn("Ignoring unreadable hit spool checkpoint: {}", e.getMessage());
+            return new long[]{0, 0};
+        }
+    }
+
+    private void writeCheckpoint(long segmentId, long offset) throws IOException {
+        Path tmp = directory.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(tmp, segmentId + " " + offset, StandardCharsets.UTF_8);
+        Files.move(tmp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the record at {@code position}, or returns null if it is incomplete or its checksum
+     * does not match.
+     */
+    private static byte[] readRecord(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (readFully(channel, header, position) < HEADER_BYTES) {
+            return null;
+        }
+        header.flip();
+        int length = header.getInt();
+        int crc = header.getInt();
+        if (length <= 0 || length > MAX_RECORD_BYTES) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        if (readFully(channel, payload, position + HEADER_BYTES) < length || crc(payload.array()) != crc) {
+            return null;
+        }
+        return payload.array();
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(List<EndpointHit> hits) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(hits.size());
+            for (EndpointHit hit : hits) {
+                out.writeUTF(hit.getApp());
+                out.writeUTF(hit.getUri());
+                out.writeUTF(hit.getIp());
+                out.writeLong(hit.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(hit.getTimestamp().getNano());
+            }
+            // trails the hits so that records written before hit ids existed still decode
+            for (EndpointHit hit : hits) {
+                out.writeUTF(hit.getHitId() == null ? "" : hit.getHitId());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<EndpointHit> decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int count = in.readInt();
+            List<EndpointHit> hits = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                EndpointHit hit = new EndpointHit();
+                hit.setApp(in.readUTF());
+                hit.setUri(in.readUTF());
+                hit.setIp(in.readUTF());
+                hit.setTimestamp(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+                hits.add(hit);
+            }
+            if (in.available() > 0) {
+                for (EndpointHit hit : hits) {
+                    String hitId = in.readUTF();
+                    hit.setHitId(hitId.isEmpty() ? null : hitId);
+                }
+            }
+            return hits;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private long size;
+        private long readOffset;
+        private long pendingBatches;
+        private long pendingHits;
+        private boolean sealed;
+
+        private Segment(long id, Path path) {
+            this.id = id;
+            this.path = path;
+        }
+    }
+
+    private record Pending(Segment segment, long nextOffset, List<EndpointHit> hits) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,162 @@
+package ru.practicum.stats.client;
+
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deduplicates concurrent stats lookups per (uri, unique, window). A caller only fetches the
+ * URIs nobody else is already fetching and waits on the in-flight futures for the rest, so
+ * overlapping bulk queries are merged into one server call per URI. Blocking and async callers
+ * share the in-flight futures, whichever of them started the fetch.
+ */
+public class SingleFlightStatsFetcher implements StatsFetcher, AsyncStatsFetcher {
+    private final ConcurrentHashMap<Key, CompletableFuture<ViewStats>> inFlight = new ConcurrentHashMap<>();
+    private final StatsFetcher delegate;
+    private final AsyncStatsFetcher asyncDelegate;
+    private final String appName;
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlightStatsFetcher(StatsFetcher delegate, AsyncStatsFetcher asyncDelegate, String appName) {
+        this.delegate = delegate;
+        this.asyncDelegate = asyncDelegate;
+        this.appName = appName;
+    }
+
+    @Override
+    public List<ViewStats> fetch(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        if (uris == null || uris.isEmpty()) {
+            return delegate.fetch(start, end, uris, unique);
+        }
+        Flight flight = join(start, end, uris, unique);
+        if (!flight.owned().isEmpty()) {
+            try {
+                complete(flight.owned(), delegate.fetch(flight.start(), flight.end(), flight.ownedUris(), unique),
+                        null);
+            } catch (RuntimeException e) {
+                complete(flight.owned(), null, e);
+            }
+        }
+        List<ViewStats> result = new ArrayList<>(flight.futures().size());
+        for (CompletableFuture<ViewStats> future : flight.futures()) {
+            result.add(join(future));
+        }
+        return sorted(result);
+    }
+
+    /**
+     * Same as {@link #fetch} without blocking: the returned future completes once every URI is
+     * fetched, by this call or by the one already fetching it.
+     */
+    @Override
+    public CompletableFuture<List<ViewStats>> fetchAsync(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                         boolean unique) {
+        if (uris == null || uris.isEmpty()) {
+            return asyncDelegate.fetchAsync(start, end, uris, unique);
+        }
+        Flight flight = join(start, end, uris, unique);
+        if (!flight.owned().isEmpty()) {
+            CompletableFuture<List<ViewStats>> fetch;
+            try {
+                fetch = asyncDelegate.fetchAsync(flight.start(), flight.end(), flight.ownedUris(), unique);
+            } catch (RuntimeException e) {
+                fetch = CompletableFuture.failedFuture(e);
+            }
+            fetch.whenComplete((fetched, error) -> complete(flight.owned(), fetched, error));
+        }
+        return CompletableFuture.allOf(flight.futures().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> sorted(flight.futures().stream().map(CompletableFuture::join).toList()));
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Registers this caller for every URI: it owns the ones nobody is fetching yet and shares the
+     * in-flight futures of the rest.
+     */
+    private Flight join(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        LocalDateTime windowStart = start.truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime windowEnd = end.truncatedTo(ChronoUnit.SECONDS);
+
+        List<CompletableFuture<ViewStats>> futures = new ArrayList<>(uris.size());
+        Map<Key, CompletableFuture<ViewStats>> owned = new LinkedHashMap<>();
+        for (String uri : new LinkedHashSet<>(uris)) {
+            Key key = new Key(uri, unique, windowStart, windowEnd);
+            CompletableFuture<ViewStats> future = new CompletableFuture<>();
+            CompletableFuture<ViewStats> existing = inFlight.putIfAbsent(key, future);
+            if (existing == null) {
+                owned.put(key, future);
+                futures.add(future);
+            } else {
+                coalesced.increment();
+                futures.add(existing);
+            }
+        }
+        return new Flight(windowStart, windowEnd, owned, futures);
+    }
+
+    private void complete(Map<Key, CompletableFuture<ViewStats>> owned, List<ViewStats> fetched, Throwable error) {
+        try {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                owned.values().forEach(future -> future.completeExceptionally(cause));
+                return;
+            }
+            Map<String, ViewStats> byUri = new HashMap<>();
+            for (ViewStats stats : fetched) {
+                byUri.putIfAbsent(stats.getUri(), stats);
+            }
+            owned.forEach((key, future) -> future.complete(
+                    byUri.getOrDefault(key.uri(), new ViewStats(appName, key.uri(), 0L))));
+        } finally {
+            owned.forEach(inFlight::remove);
+        }
+    }
+
+    private static List<ViewStats> sorted(List<ViewStats> stats) {
+        List<ViewStats> result = new ArrayList<>(stats.size());
+        for (ViewStats viewStats : stats) {
+            if (viewStats.getHits() != null && viewStats.getHits() > 0) {
+                result.add(viewStats);
+            }
+        }
+        result.sort((a, b) -> Long.compare(b.getHits(), a.getHits()));
+        return result;
+    }
+
+    private static ViewStats join(CompletableFuture<ViewStats> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(String uri, boolean unique, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private record Flight(LocalDateTime start, LocalDateTime end, Map<Key, CompletableFuture<ViewStats>> owned,
+                          List<CompletableFuture<ViewStats>> futures) {
+        List<String> ownedUris() {
+            return owned.keySet().stream().map(Key::uri).toList();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,20 @@
+package ru.practicum.stats.client;
+
+import java.time.Duration;
+
+/**
+ * The statistics service asked the client to slow down (429 or 503); calls should not be
+ * repeated before {@link #getRetryAfter()} has passed.
+ */
+public class StatsBackoffException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public StatsBackoffException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
\ No newline at end of file
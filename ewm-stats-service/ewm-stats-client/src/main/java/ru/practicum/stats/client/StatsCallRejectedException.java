@@ -0,0 +1,7 @@
+package ru.practicum.stats.client;
+
+public class StatsCallRejectedException extends RuntimeException {
+    public StatsCallRejectedException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
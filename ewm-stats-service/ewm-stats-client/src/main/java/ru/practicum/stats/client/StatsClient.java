@@ -1,43 +1,120 @@
 package ru.practicum.stats.client;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.practicum.stats.dto.EndpointHit;
+import ru.practicum.stats.dto.StatsQuery;
+import ru.practicum.stats.dto.TimeSeries;
+import ru.practicum.stats.dto.TopViewStats;
 import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.stats.wire.HitBatch;
+import ru.practicum.stats.wire.HitBatchCodec;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Slf4j
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
-public class StatsClient {
+public class StatsClient implements AutoCloseable {
     RestTemplate restTemplate;
     StatsClientConfig config;
+    AsyncHitSender hitSender;
+    HitSpool hitSpool;
+    CircuitBreaker circuitBreaker;
+    Bulkhead bulkhead;
+    SingleFlightStatsFetcher singleFlight;
+    StatsFetcher statsFetcher;
+    AsyncStatsFetcher asyncStatsFetcher;
+    ViewStatsCache viewStatsCache;
+    ExecutorService asyncExecutor;
+    HttpClient asyncHttpClient;
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    ObjectReader statsReader = objectMapper.readerFor(ViewStats.class);
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final String HIT_ENDPOINT = "/hit";
+    private static final String HIT_BATCH_ENDPOINT = "/hit/batch";
+    private static final MediaType HIT_BATCH_MEDIA_TYPE = MediaType.parseMediaType(HitBatchCodec.MEDIA_TYPE);
     private static final String STATS_ENDPOINT = "/stats";
+    private static final String STATS_QUERY_ENDPOINT = "/stats/query";
+    private static final String STATS_TOP_ENDPOINT = "/stats/top";
+    private static final String STATS_TIMESERIES_ENDPOINT = "/stats/timeseries";
 
     public StatsClient(StatsClientConfig config) {
         this.config = config;
-        this.restTemplate = new RestTemplate();
+        this.restTemplate = new RestTemplate(config.getRequestFactory() != null
+                ? config.getRequestFactory()
+                : createRequestFactory(config));
+        // being asked to back off means the server is up, so it does not count as a failure
+        this.circuitBreaker = new CircuitBreaker(config.getCircuitFailureThreshold(), config.getCircuitOpenDuration(),
+                e -> !(e instanceof HttpClientErrorException) && !(e instanceof StatsBackoffException));
+        this.bulkhead = new Bulkhead(config.getMaxConcurrentCalls());
+        this.singleFlight = config.isCoalesceRequests()
+                ? new SingleFlightStatsFetcher(this::fetchStats, this::fetchStatsAsync, config.getAppName())
+                : null;
+        this.statsFetcher = singleFlight != null ? singleFlight : this::fetchStats;
+        this.asyncStatsFetcher = singleFlight != null ? singleFlight : this::fetchStatsAsync;
+        this.viewStatsCache = config.isCacheEnabled()
+                ? new ViewStatsCache(config, statsFetcher, asyncStatsFetcher)
+                : null;
+        this.hitSpool = config.getSpoolDirectory() != null ? new HitSpool(config, this::sendHits) : null;
+        this.hitSender = config.isAsyncHits() ? new AsyncHitSender(config, this::sendHits, hitSpool) : null;
+        this.asyncExecutor = Executors.newFixedThreadPool(config.getAsyncThreads(),
+                Thread.ofPlatform().name("stats-client-async-", 0).daemon().factory());
+        this.asyncHttpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(config.getConnectTimeout())
+                .executor(asyncExecutor)
+                .build();
     }
 
     public void hit(String uri, String ip, LocalDateTime timestamp) {
-        EndpointHit endpointHit = new EndpointHit();
-        endpointHit.setApp(config.getAppName());
-        endpointHit.setUri(uri);
-        endpointHit.setIp(ip);
-        endpointHit.setTimestamp(timestamp);
+        EndpointHit endpointHit = newHit(uri, ip, timestamp);
+
+        if (hitSender != null) {
+            hitSender.enqueue(endpointHit);
+            return;
+        }
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -46,12 +123,100 @@ public class StatsClient {
 
         try {
             String url = String.format("%s%s", config.getServerUrl(), HIT_ENDPOINT);
-            restTemplate.postForEntity(url, request, Void.class);
+            execute(() -> postHits(url, request));
         } catch (Exception e) {
+            if (hitSpool != null && hitSpool.append(List.of(endpointHit))) {
+                log.debug("Spooled hit after failing to send it: {}", e.getMessage());
+                return;
+            }
             log.warn("Failed to send hit to statistics service: {}", e.getMessage());
         }
     }
 
+    /**
+     * Non-blocking variant of {@link #hit}. With async hits enabled the hit is only queued and the
+     * future is already complete; otherwise it completes once the server has answered. The future
+     * never completes exceptionally: a hit that cannot be sent is spooled if a spool is configured
+     * and logged otherwise.
+     */
+    public CompletableFuture<Void> hitAsync(String uri, String ip, LocalDateTime timestamp) {
+        EndpointHit endpointHit = newHit(uri, ip, timestamp);
+        if (hitSender != null) {
+            hitSender.enqueue(endpointHit);
+            return CompletableFuture.completedFuture(null);
+        }
+        return sendAsync(HIT_ENDPOINT, endpointHit)
+                .<Void>thenApply(body -> null)
+                .exceptionally(e -> {
+                    Throwable cause = unwrap(e);
+                    if (hitSpool != null && hitSpool.append(List.of(endpointHit))) {
+                        log.debug("Spooled hit after failing to send it: {}", cause.getMessage());
+                    } else {
+                        log.warn("Failed to send hit to statistics service: {}", cause.getMessage());
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Non-blocking variant of {@link #queryStats}, sharing its cache and request coalescing: cached
+     * URIs are served at once and a URI already being fetched, by a blocking or an async caller,
+     * is not fetched again. The request and the parsing of the response run on the client's own
+     * threads and are bounded by {@code asyncTimeout}. The future never completes exceptionally;
+     * on failure it yields an empty list.
+     */
+    public CompletableFuture<List<ViewStats>> getStatsAsync(LocalDateTime start, LocalDateTime end,
+                                                            List<String> uris, Boolean unique) {
+        CompletableFuture<List<ViewStats>> future;
+        try {
+            future = viewStatsCache != null && uris != null && !uris.isEmpty()
+                    ? viewStatsCache.getAsync(start, end, uris, Boolean.TRUE.equals(unique))
+                    : asyncStatsFetcher.fetchAsync(start, end, uris, Boolean.TRUE.equals(unique));
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.exceptionally(e -> {
+            log.warn("Failed to get statistics: {}", unwrap(e).getMessage());
+            return List.of();
+        });
+    }
+
+    public Optional<AsyncHitSender> getHitSender() {
+        return Optional.ofNullable(hitSender);
+    }
+
+    public Optional<HitSpool> getHitSpool() {
+        return Optional.ofNullable(hitSpool);
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public Optional<SingleFlightStatsFetcher> getSingleFlight() {
+        return Optional.ofNullable(singleFlight);
+    }
+
+    public Optional<ViewStatsCache> getViewStatsCache() {
+        return Optional.ofNullable(viewStatsCache);
+    }
+
+    @Override
+    public void close() {
+        if (hitSender != null) {
+            hitSender.close();
+        }
+        if (hitSpool != null) {
+            hitSpool.close();
+        }
+        asyncHttpClient.close();
+        asyncExecutor.shutdown();
+    }
+
     public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
         try {
             UriComponentsBuilder builder = UriComponentsBuilder
@@ -69,12 +234,13 @@ public class StatsClient {
                 builder.queryParam("unique", true);
             }
 
-            ResponseEntity<ViewStats[]> response = restTemplate.exchange(
-                    builder.build(true).toUriString(),
+            String url = builder.build(true).toUriString();
+            ResponseEntity<ViewStats[]> response = execute(() -> restTemplate.exchange(
+                    url,
                     HttpMethod.GET,
                     null,
                     ViewStats[].class
-            );
+            ));
 
             return Arrays.asList(response.getBody());
         } catch (Exception e) {
@@ -82,4 +248,265 @@ public class StatsClient {
             return List.of();
         }
     }
+
+    /**
+     * Returns hits per {@code granularity} ({@code minute}, {@code hour} or {@code day}) bucket
+     * for each uri, or null if the statistics service could not be reached.
+     */
+    public TimeSeries getTimeSeries(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                    String granularity, Boolean unique) {
+        try {
+            UriComponentsBuilder builder = UriComponentsBuilder
+                    .fromHttpUrl(String.format("%s%s", config.getServerUrl(), STATS_TIMESERIES_ENDPOINT))
+                    .queryParam("start", start.format(FORMATTER))
+                    .queryParam("end", end.format(FORMATTER))
+                    .queryParam("granularity", granularity);
+
+            if (uris != null && !uris.isEmpty()) {
+                for (String uri : uris) {
+                    builder.queryParam("uris", uri);
+                }
+            }
+
+            if (Boolean.TRUE.equals(unique)) {
+                builder.queryParam("unique", true);
+            }
+
+            String url = builder.build(true).toUriString();
+            return execute(() -> restTemplate.getForObject(url, TimeSeries.class));
+        } catch (Exception e) {
+            log.warn("Failed to get time series: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the {@code n} most viewed uris of this app over the last {@code window}
+     * (for example {@code 1h} or {@code 1d}); hits are estimates, see {@link TopViewStats}.
+     */
+    public List<TopViewStats> getTop(String window, int n) {
+        try {
+            String url = UriComponentsBuilder
+                    .fromHttpUrl(String.format("%s%s", config.getServerUrl(), STATS_TOP_ENDPOINT))
+                    .queryParam("app", config.getAppName())
+                    .queryParam("window", window)
+                    .queryParam("n", n)
+                    .build()
+                    .toUriString();
+            ResponseEntity<TopViewStats[]> response = execute(() -> restTemplate.getForEntity(url,
+                    TopViewStats[].class));
+            return response.getBody() == null ? List.of() : Arrays.asList(response.getBody());
+        } catch (Exception e) {
+            log.warn("Failed to get top endpoints: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Reads the stats as newline-delimited JSON and hands every row to {@code consumer} as soon
+     * as it is parsed, so large result sets are never held in memory. Returns the number of rows
+     * read; rows passed to the consumer before a failure are not replayed.
+     */
+    public long streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                            Consumer<ViewStats> consumer) {
+        try {
+            UriComponentsBuilder builder = UriComponentsBuilder
+                    .fromHttpUrl(String.format("%s%s", config.getServerUrl(), STATS_ENDPOINT))
+                    .queryParam("start", start.format(FORMATTER))
+                    .queryParam("end", end.format(FORMATTER));
+
+            if (uris != null && !uris.isEmpty()) {
+                for (String uri : uris) {
+                    builder.queryParam("uris", uri);
+                }
+            }
+
+            if (Boolean.TRUE.equals(unique)) {
+                builder.queryParam("unique", true);
+            }
+
+            String url = builder.build(true).toUriString();
+            Long count = execute(() -> restTemplate.execute(
+                    url,
+                    HttpMethod.GET,
+                    request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON)),
+                    response -> readNdjson(response.getBody(), consumer)
+            ));
+            return count == null ? 0 : count;
+        } catch (Exception e) {
+            log.warn("Failed to stream statistics: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    public List<ViewStats> queryStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
+        try {
+            if (viewStatsCache != null && uris != null && !uris.isEmpty()) {
+                return viewStatsCache.get(start, end, uris, Boolean.TRUE.equals(unique));
+            }
+            return statsFetcher.fetch(start, end, uris, Boolean.TRUE.equals(unique));
+        } catch (Exception e) {
+            log.warn("Failed to query statistics: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<ViewStats> fetchStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        StatsQuery query = new StatsQuery(start, end, uris, unique, null, false, false);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<StatsQuery> request = new HttpEntity<>(query, headers);
+
+        String url = String.format("%s%s", config.getServerUrl(), STATS_QUERY_ENDPOINT);
+        ResponseEntity<ViewStats[]> response = execute(() -> restTemplate.postForEntity(url, request, ViewStats[].class));
+        return response.getBody() == null ? List.of() : Arrays.asList(response.getBody());
+    }
+
+    private CompletableFuture<List<ViewStats>> fetchStatsAsync(LocalDateTime start, LocalDateTime end,
+                                                               List<String> uris, boolean unique) {
+        StatsQuery query = new StatsQuery(start, end, uris, unique, null, false, false);
+        return sendAsync(STATS_QUERY_ENDPOINT, query).thenApplyAsync(this::parseStats, asyncExecutor);
+    }
+
+    private long readNdjson(InputStream body, Consumer<ViewStats> consumer) throws IOException {
+        long count = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                consumer.accept(statsReader.readValue(line));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private EndpointHit newHit(String uri, String ip, LocalDateTime timestamp) {
+        EndpointHit endpointHit = new EndpointHit();
+        endpointHit.setApp(config.getAppName());
+        endpointHit.setUri(uri);
+        endpointHit.setIp(ip);
+        endpointHit.setTimestamp(timestamp);
+        if (config.isHitIds()) {
+            endpointHit.setHitId(UUID.randomUUID().toString());
+        }
+        return endpointHit;
+    }
+
+    private CompletableFuture<byte[]> sendAsync(String path, Object body) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(config.getServerUrl() + path))
+                    .timeout(config.getAsyncTimeout())
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return circuitBreaker.executeAsync(() -> bulkhead.executeAsync(() -> asyncHttpClient
+                .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(this::checkStatus)
+                .orTimeout(config.getAsyncTimeout().toMillis(), TimeUnit.MILLISECONDS)));
+    }
+
+    private byte[] checkStatus(HttpResponse<byte[]> response) {
+        int status = response.statusCode();
+        if (status < 300) {
+            return response.body();
+        }
+        if (status == HttpStatus.TOO_MANY_REQUESTS.value() || status == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+            throw new StatsBackoffException("Statistics service responded " + status,
+                    retryAfter(response.headers().firstValue(HttpHeaders.RETRY_AFTER).orElse(null)));
+        }
+        throw status < 500
+                ? new HttpClientErrorException(HttpStatusCode.valueOf(status))
+                : new HttpServerErrorException(HttpStatusCode.valueOf(status));
+    }
+
+    private List<ViewStats> parseStats(byte[] body) {
+        if (body == null || body.length == 0) {
+            return List.of();
+        }
+        try {
+            return Arrays.asList(objectMapper.readValue(body, ViewStats[].class));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private void sendHits(List<EndpointHit> endpointHits) {
+        HttpHeaders headers = new HttpHeaders();
+        HttpEntity<?> request;
+        byte[] encoded = config.isBinaryHits() ? encodeHits(endpointHits) : null;
+        if (encoded != null) {
+            headers.setContentType(HIT_BATCH_MEDIA_TYPE);
+            request = new HttpEntity<>(encoded, headers);
+        } else {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            request = new HttpEntity<>(endpointHits, headers);
+        }
+
+        String url = String.format("%s%s", config.getServerUrl(), HIT_BATCH_ENDPOINT);
+        execute(() -> postHits(url, request));
+    }
+
+    private byte[] encodeHits(List<EndpointHit> endpointHits) {
+        try {
+            return HitBatchCodec.encode(HitBatch.of(endpointHits));
+        } catch (IllegalArgumentException e) {
+            log.debug("Sending hit batch as JSON: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private ResponseEntity<Void> postHits(String url, HttpEntity<?> request) {
+        try {
+            return restTemplate.postForEntity(url, request, Void.class);
+        } catch (HttpStatusCodeException e) {
+            HttpStatusCode status = e.getStatusCode();
+            if (status.value() == HttpStatus.TOO_MANY_REQUESTS.value()
+                    || status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                throw new StatsBackoffException("Statistics service responded " + status.value(),
+                        retryAfter(e.getResponseHeaders()));
+            }
+            throw e;
+        }
+    }
+
+    private Duration retryAfter(HttpHeaders headers) {
+        return retryAfter(headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    private Duration retryAfter(String value) {
+        Duration retryAfter = config.getDefaultRetryAfter();
+        if (value != null) {
+            try {
+                retryAfter = Duration.ofSeconds(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring Retry-After header that is not in seconds: {}", value);
+            }
+        }
+        return retryAfter.compareTo(config.getMaxRetryAfter()) > 0 ? config.getMaxRetryAfter() : retryAfter;
+    }
+
+    private <T> T execute(Supplier<T> call) {
+        return circuitBreaker.execute(() -> bulkhead.execute(call));
+    }
+
+    private static ClientHttpRequestFactory createRequestFactory(StatsClientConfig config) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(config.getConnectTimeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(config.getReadTimeout());
+        return requestFactory;
+    }
 }
\ No newline at end of file
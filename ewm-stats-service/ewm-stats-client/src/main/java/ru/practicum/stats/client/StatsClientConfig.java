@@ -1,14 +1,75 @@
 package ru.practicum.stats.client;
 
 import lombok.AccessLevel;
+import lombok.Builder;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
 
 @Getter
-@RequiredArgsConstructor
+@Builder
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class StatsClientConfig {
     String serverUrl;
     String appName;
+
+    @Builder.Default
+    boolean asyncHits = false;
+    @Builder.Default
+    int hitQueueCapacity = 10_000;
+    @Builder.Default
+    int hitBatchSize = 500;
+    @Builder.Default
+    Duration hitFlushInterval = Duration.ofSeconds(1);
+    @Builder.Default
+    HitOverflowPolicy hitOverflowPolicy = HitOverflowPolicy.DROP_OLDEST;
+    @Builder.Default
+    boolean binaryHits = false;
+    @Builder.Default
+    boolean hitIds = true;
+    @Builder.Default
+    Duration defaultRetryAfter = Duration.ofSeconds(1);
+    @Builder.Default
+    Duration maxRetryAfter = Duration.ofMinutes(1);
+
+    Path spoolDirectory;
+    @Builder.Default
+    long spoolSegmentBytes = 16L * 1024 * 1024;
+    @Builder.Default
+    long spoolMaxBytes = 512L * 1024 * 1024;
+    @Builder.Default
+    Duration spoolReplayInterval = Duration.ofSeconds(5);
+
+    @Builder.Default
+    Duration connectTimeout = Duration.ofSeconds(2);
+    @Builder.Default
+    Duration readTimeout = Duration.ofSeconds(3);
+    @Builder.Default
+    int maxConcurrentCalls = 50;
+    @Builder.Default
+    int circuitFailureThreshold = 5;
+    @Builder.Default
+    Duration circuitOpenDuration = Duration.ofSeconds(30);
+    ClientHttpRequestFactory requestFactory;
+    @Builder.Default
+    int asyncThreads = 4;
+    @Builder.Default
+    Duration asyncTimeout = Duration.ofSeconds(2);
+
+    @Builder.Default
+    boolean coalesceRequests = true;
+
+    @Builder.Default
+    boolean cacheEnabled = false;
+    @Builder.Default
+    long cacheMaximumSize = 100_000;
+    @Builder.Default
+    Duration cacheTtl = Duration.ofMinutes(1);
+    @Builder.Default
+    Duration cacheRefreshAfter = Duration.ofSeconds(30);
+    @Builder.Default
+    Duration cacheWindowGranularity = Duration.ofMinutes(1);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package ru.practicum.stats.client;
+
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@FunctionalInterface
+public interface StatsFetcher {
+    List<ViewStats> fetch(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+}
\ No newline at end of file
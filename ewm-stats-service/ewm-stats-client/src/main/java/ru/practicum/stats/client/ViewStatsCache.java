@@ -0,0 +1,149 @@
+package ru.practicum.stats.client;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Caches per-URI view counts keyed by (uri, unique, window). Window bounds are truncated to
+ * {@code windowGranularity} so that sliding "now ± 1 year" windows share entries. Bulk lookups
+ * go to the server only for the missing URIs; entries read after {@code refreshAfter} are
+ * reloaded in the background while the old value keeps being served until {@code ttl}.
+ * {@link #getAsync} reads the same entries and stores what it fetches, without blocking.
+ */
+public class ViewStatsCache {
+    private final LoadingCache<Key, ViewStats> cache;
+    private final AsyncStatsFetcher asyncFetcher;
+    private final String appName;
+    private final long windowGranularitySeconds;
+
+    public ViewStatsCache(StatsClientConfig config, StatsFetcher fetcher, AsyncStatsFetcher asyncFetcher) {
+        this.asyncFetcher = asyncFetcher;
+        this.appName = config.getAppName();
+        this.windowGranularitySeconds = Math.max(1, config.getCacheWindowGranularity().toSeconds());
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getCacheMaximumSize())
+                .expireAfterWrite(config.getCacheTtl())
+                .refreshAfterWrite(config.getCacheRefreshAfter())
+                .recordStats()
+                .build(new Loader(fetcher, config.getAppName()));
+    }
+
+    public List<ViewStats> get(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return sorted(cache.getAll(keys(start, end, uris, unique)).values());
+    }
+
+    /**
+     * Serves the cached URIs at once and fetches only the missing ones, through the same request
+     * coalescing as {@link #get}, then caches them.
+     */
+    public CompletableFuture<List<ViewStats>> getAsync(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                       boolean unique) {
+        List<Key> keys = keys(start, end, uris, unique);
+        Map<Key, ViewStats> present = cache.getAllPresent(keys);
+        if (present.size() == keys.size()) {
+            return CompletableFuture.completedFuture(sorted(present.values()));
+        }
+        List<Key> missing = keys.stream().filter(key -> !present.containsKey(key)).toList();
+        Key first = missing.get(0);
+        return asyncFetcher.fetchAsync(first.start(), first.end(), missing.stream().map(Key::uri).toList(), unique)
+                .thenApply(fetched -> {
+                    Map<Key, ViewStats> loaded = Loader.byKey(missing, fetched, appName);
+                    cache.putAll(loaded);
+                    List<ViewStats> all = new ArrayList<>(present.values());
+                    all.addAll(loaded.values());
+                    return sorted(all);
+                });
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private List<Key> keys(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        LocalDateTime windowStart = align(start);
+        LocalDateTime windowEnd = align(end);
+        return uris.stream()
+                .distinct()
+                .map(uri -> new Key(uri, unique, windowStart, windowEnd))
+                .collect(Collectors.toList());
+    }
+
+    private static List<ViewStats> sorted(Collection<ViewStats> stats) {
+        return stats.stream()
+                .filter(v -> v.getHits() != null && v.getHits() > 0)
+                .sorted((a, b) -> Long.compare(b.getHits(), a.getHits()))
+                .collect(Collectors.toList());
+    }
+
+    private LocalDateTime align(LocalDateTime time) {
+        long epochSecond = time.toEpochSecond(ZoneOffset.UTC);
+        long aligned = epochSecond - Math.floorMod(epochSecond, windowGranularitySeconds);
+        return LocalDateTime.ofEpochSecond(aligned, 0, ZoneOffset.UTC);
+    }
+
+    private record Key(String uri, boolean unique, LocalDateTime start, LocalDateTime end) {
+        Window window() {
+            return new Window(unique, start, end);
+        }
+    }
+
+    private record Window(boolean unique, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private record Loader(StatsFetcher fetcher, String appName) implements CacheLoader<Key, ViewStats> {
+        @Override
+        public ViewStats load(Key key) {
+            return loadAll(Set.of(key)).get(key);
+        }
+
+        @Override
+        public Map<Key, ViewStats> loadAll(Set<? extends Key> keys) {
+            Map<Window, List<Key>> byWindow = keys.stream().collect(Collectors.groupingBy(Key::window));
+            Map<Key, ViewStats> result = new HashMap<>();
+            for (Map.Entry<Window, List<Key>> entry : byWindow.entrySet()) {
+                Window window = entry.getKey();
+                List<String> uris = new ArrayList<>(entry.getValue().size());
+                for (Key key : entry.getValue()) {
+                    uris.add(key.uri());
+                }
+                result.putAll(byKey(entry.getValue(),
+                        fetcher.fetch(window.start(), window.end(), uris, window.unique()), appName));
+            }
+            return result;
+        }
+
+        /**
+         * Matches fetched stats to their keys; a URI the server did not return has no views.
+         */
+        private static Map<Key, ViewStats> byKey(List<Key> keys, List<ViewStats> fetched, String appName) {
+            Map<String, ViewStats> byUri = new HashMap<>();
+            for (ViewStats stats : fetched) {
+                byUri.putIfAbsent(stats.getUri(), stats);
+            }
+            Map<Key, ViewStats> result = new HashMap<>();
+            for (Key key : keys) {
+                ViewStats stats = byUri.get(key.uri());
+                result.put(key, stats != null ? stats : new ViewStats(appName, key.uri(), 0L));
+            }
+            return result;
+        }
+    }
+}
\ No newline at end of file
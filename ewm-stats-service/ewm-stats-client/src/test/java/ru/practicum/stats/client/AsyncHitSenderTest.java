@@ -0,0 +1,104 @@
+package ru.practicum.stats.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.stats.dto.EndpointHit;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AsyncHitSenderTest {
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final List<String> replayed = new CopyOnWriteArrayList<>();
+
+    @Test
+    void queuedHitsAreSentOnClose() {
+        AsyncHitSender sender = sender(null);
+        sender.enqueue(hit("/events/1"));
+        sender.enqueue(hit("/events/2"));
+
+        sender.close();
+
+        assertEquals(List.of("/events/1", "/events/2"), sent);
+        assertEquals(2, sender.getSentCount());
+        assertEquals(0, sender.getQueueSize());
+    }
+
+    @Test
+    void hitEnqueuedAfterCloseIsCountedAsDroppedWithoutASpool() {
+        AsyncHitSender sender = sender(null);
+        sender.close();
+
+        sender.enqueue(hit("/events/1"));
+
+        assertEquals(1, sender.getDroppedCount());
+        assertEquals(0, sender.getQueueSize());
+        assertEquals(List.of(), sent);
+    }
+
+    @Test
+    void hitEnqueuedAfterCloseIsSpooled(@TempDir Path directory) {
+        HitSpool spool = new HitSpool(StatsClientConfig.builder()
+                .spoolDirectory(directory)
+                .spoolReplayInterval(Duration.ofMillis(10))
+                .build(), hits -> hits.forEach(hit -> replayed.add(hit.getUri())));
+        try {
+            AsyncHitSender sender = sender(spool);
+            sender.close();
+
+            sender.enqueue(hit("/events/1"));
+
+            assertEquals(0, sender.getDroppedCount());
+            assertEquals(0, sender.getQueueSize());
+            awaitUntil(() -> replayed.size() == 1);
+            assertEquals(List.of("/events/1"), replayed);
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test
+    void hitsEnqueuedWhileClosingAreNeitherLostNorLeftInTheQueue() throws InterruptedException {
+        for (int run = 0; run < 50; run++) {
+            AsyncHitSender sender = sender(null);
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    sender.enqueue(hit("/events/" + i));
+                }
+            });
+            producer.start();
+            sender.close();
+            producer.join();
+
+            assertEquals(1_000, sender.getSentCount() + sender.getDroppedCount());
+            assertEquals(0, sender.getQueueSize());
+            sent.clear();
+        }
+    }
+
+    private AsyncHitSender sender(HitSpool spool) {
+        return new AsyncHitSender(StatsClientConfig.builder()
+                .hitFlushInterval(Duration.ofMillis(10))
+                .build(), hits -> hits.forEach(hit -> sent.add(hit.getUri())), spool);
+    }
+
+    private static EndpointHit hit(String uri) {
+        return new EndpointHit(null, "ewm-main-service", uri, "10.0.0.1", LocalDateTime.of(2026, 1, 1, 12, 0), null);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5 seconds");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package ru.practicum.stats.client;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncStatsLookupTest {
+    private static final String APP = "ewm-main-service";
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2027, 1, 1, 0, 0);
+    private static final List<String> URIS = List.of("/events/1");
+
+    private final AtomicInteger syncFetches = new AtomicInteger();
+    private final AtomicInteger asyncFetches = new AtomicInteger();
+    private final CompletableFuture<List<ViewStats>> pending = new CompletableFuture<>();
+
+    private final StatsFetcher syncFetcher = (start, end, uris, unique) -> {
+        syncFetches.incrementAndGet();
+        return List.of(new ViewStats(APP, "/events/1", 7L));
+    };
+
+    private final AsyncStatsFetcher asyncFetcher = (start, end, uris, unique) -> {
+        asyncFetches.incrementAndGet();
+        return pending;
+    };
+
+    @Test
+    void concurrentAsyncLookupsShareOneFetch() {
+        SingleFlightStatsFetcher singleFlight = new SingleFlightStatsFetcher(syncFetcher, asyncFetcher, APP);
+
+        CompletableFuture<List<ViewStats>> first = singleFlight.fetchAsync(START, END, URIS, false);
+        CompletableFuture<List<ViewStats>> second = singleFlight.fetchAsync(START, END, URIS, false);
+        assertFalse(first.isDone());
+
+        pending.complete(List.of(new ViewStats(APP, "/events/1", 3L)));
+
+        assertEquals(3L, first.join().get(0).getHits());
+        assertEquals(3L, second.join().get(0).getHits());
+        assertEquals(1, asyncFetches.get());
+        assertEquals(1, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    void blockingLookupWaitsForTheAsyncFetchInFlight() throws Exception {
+        SingleFlightStatsFetcher singleFlight = new SingleFlightStatsFetcher(syncFetcher, asyncFetcher, APP);
+        CompletableFuture<List<ViewStats>> async = singleFlight.fetchAsync(START, END, URIS, false);
+
+        CompletableFuture<List<ViewStats>> blocking = CompletableFuture.supplyAsync(
+                () -> singleFlight.fetch(START, END, URIS, false));
+        while (singleFlight.getCoalescedCount() == 0) {
+            Thread.onSpinWait();
+        }
+        pending.complete(List.of(new ViewStats(APP, "/events/1", 3L)));
+
+        assertEquals(3L, blocking.get(5, TimeUnit.SECONDS).get(0).getHits());
+        assertEquals(3L, async.join().get(0).getHits());
+        assertEquals(0, syncFetches.get());
+    }
+
+    @Test
+    void asyncFailureReachesEveryWaiterAndIsNotKept() {
+        SingleFlightStatsFetcher singleFlight = new SingleFlightStatsFetcher(syncFetcher, asyncFetcher, APP);
+        CompletableFuture<List<ViewStats>> async = singleFlight.fetchAsync(START, END, URIS, false);
+
+        pending.completeExceptionally(new IllegalStateException("down"));
+
+        assertTrue(async.isCompletedExceptionally());
+        assertEquals(7L, singleFlight.fetch(START, END, URIS, false).get(0).getHits());
+    }
+
+    @Test
+    void asyncLookupsAreCachedForBothPaths() {
+        StatsClientConfig config = StatsClientConfig.builder().appName(APP).cacheEnabled(true).build();
+        ViewStatsCache cache = new ViewStatsCache(config, syncFetcher, asyncFetcher);
+
+        CompletableFuture<List<ViewStats>> miss = cache.getAsync(START, END, URIS, false);
+        pending.complete(List.of(new ViewStats(APP, "/events/1", 3L)));
+        assertEquals(3L, miss.join().get(0).getHits());
+
+        CompletableFuture<List<ViewStats>> hit = cache.getAsync(START, END, URIS, false);
+        assertEquals(3L, hit.getNow(List.of()).get(0).getHits());
+        assertEquals(3L, cache.get(START, END, URIS, false).get(0).getHits());
+        assertEquals(1, asyncFetches.get());
+        assertEquals(0, syncFetches.get());
+    }
+}
\ No newline at end of file
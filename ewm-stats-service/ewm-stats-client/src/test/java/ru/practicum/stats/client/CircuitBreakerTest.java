@@ -0,0 +1,67 @@
+package ru.practicum.stats.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void openBreaker() {
+        // a zero open duration makes the next call after a failure the half-open trial
+        breaker = new CircuitBreaker(1, Duration.ZERO, e -> true);
+        assertThrows(IllegalStateException.class, () -> breaker.execute(() -> {
+            throw new IllegalStateException("down");
+        }));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void trialThatThrowsAnErrorIsReleased() {
+        assertThrows(AssertionError.class, () -> breaker.execute(() -> {
+            throw new AssertionError("boom");
+        }));
+
+        assertEquals("ok", breaker.execute(() -> "ok"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void asyncTrialThatThrowsAnErrorIsReleased() {
+        assertThrows(AssertionError.class, () -> breaker.executeAsync(() -> {
+            throw new AssertionError("boom");
+        }));
+
+        assertEquals("ok", breaker.executeAsync(() -> CompletableFuture.completedFuture("ok")).join());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void asyncTrialThatCompletesWithAnErrorReopens() {
+        CompletableFuture<String> trial = breaker.executeAsync(
+                () -> CompletableFuture.failedFuture(new AssertionError("boom")));
+
+        assertTrue(trial.isCompletedExceptionally());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals("ok", breaker.executeAsync(() -> CompletableFuture.completedFuture("ok")).join());
+    }
+
+    @Test
+    void onlyOneTrialAtATime() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> trial = breaker.executeAsync(() -> pending);
+
+        assertThrows(StatsCallRejectedException.class, () -> breaker.execute(() -> "second"));
+
+        pending.complete("ok");
+        assertEquals("ok", trial.join());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,213 @@
+package ru.practicum.stats.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import ru.practicum.stats.dto.EndpointHit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitSpoolTest {
+    private static final Consumer<List<EndpointHit>> UNREACHABLE = hits -> {
+        throw new ResourceAccessException("Connection refused");
+    };
+
+    @TempDir
+    Path directory;
+
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+    private final Consumer<List<EndpointHit>> recording = hits -> hits.forEach(hit -> delivered.add(hit.getUri()));
+    private final List<HitSpool> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(HitSpool::close);
+    }
+
+    @Test
+    void undeliveredBatchesAreReplayedAfterARestartFromTheCheckpoint() {
+        AtomicInteger accepted = new AtomicInteger();
+        HitSpool first = open(1024 * 1024, hits -> {
+            if (accepted.get() == 2) {
+                throw new ResourceAccessException("Connection refused");
+            }
+            accepted.incrementAndGet();
+        });
+        first.append(hits("/events/1"));
+        first.append(hits("/events/2"));
+        first.append(hits("/events/3"));
+        awaitUntil(() -> first.getReplayedHitCount() == 2);
+        first.close();
+
+        HitSpool second = open(1024 * 1024, recording);
+
+        assertEquals(1, second.getPendingBatches());
+        awaitUntil(() -> second.getPendingBatches() == 0);
+        assertEquals(List.of("/events/3"), delivered);
+    }
+
+    @Test
+    void transportErrorsAndServerErrorsAreRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        HitSpool spool = open(1024 * 1024, hits -> {
+            switch (attempts.incrementAndGet()) {
+                case 1 -> throw new ResourceAccessException("Connection refused");
+                case 2 -> throw new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR);
+                default -> recording.accept(hits);
+            }
+        });
+
+        spool.append(hits("/events/1"));
+
+        awaitUntil(() -> spool.getReplayedHitCount() == 1);
+        assertEquals(List.of("/events/1"), delivered);
+        assertEquals(0, spool.getRejectedHitCount());
+    }
+
+    @Test
+    void batchRejectedAsInvalidIsDroppedAndDoesNotBlockTheRest() {
+        HitSpool spool = open(1024 * 1024, hits -> {
+            if (hits.get(0).getUri().equals("/invalid")) {
+                throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+            }
+            recording.accept(hits);
+        });
+
+        spool.append(hits("/invalid", "/invalid"));
+        spool.append(hits("/events/1"));
+
+        awaitUntil(() -> spool.getReplayedHitCount() == 1);
+        assertEquals(List.of("/events/1"), delivered);
+        assertEquals(2, spool.getRejectedHitCount());
+        spool.close();
+
+        assertEquals(0, open(1024 * 1024, recording).getPendingBatches());
+    }
+
+    @Test
+    void corruptRecordIsCutOffAtStartup() throws IOException {
+        HitSpool first = open(1024 * 1024, UNREACHABLE);
+        first.append(hits("/events/1"));
+        first.append(hits("/events/2"));
+        first.close();
+        Path segment = segment();
+        int firstRecord = recordLength(segment, 0);
+        flipByte(segment, firstRecord + 10);
+
+        HitSpool second = open(1024 * 1024, recording);
+
+        assertEquals(1, second.getCorruptRecordCount());
+        assertEquals(firstRecord, Files.size(segment));
+        awaitUntil(() -> second.getPendingBatches() == 0);
+        assertEquals(List.of("/events/1"), delivered);
+    }
+
+    @Test
+    void tornTailIsTruncatedAndLaterAppendsAreKept() throws IOException {
+        HitSpool first = open(1024 * 1024, UNREACHABLE);
+        first.append(hits("/events/1"));
+        first.close();
+        Path segment = segment();
+        long goodBytes = Files.size(segment);
+        // a crash in the middle of an append: the header promises more bytes than were written
+        Files.write(segment, ByteBuffer.allocate(12).putInt(1000).putInt(42).putInt(7).array(),
+                StandardOpenOption.APPEND);
+
+        HitSpool second = open(1024 * 1024, recording);
+        second.append(hits("/events/2"));
+
+        assertEquals(1, second.getCorruptRecordCount());
+        awaitUntil(() -> delivered.size() == 2);
+        assertEquals(List.of("/events/1", "/events/2"), delivered);
+        assertTrue(Files.size(segment) > goodBytes);
+    }
+
+    @Test
+    void oldestSegmentsAreDroppedBeyondMaxBytes() {
+        HitSpool spool = open(4 * 1024, UNREACHABLE);
+        int appended = 0;
+        for (int i = 0; i < 100; i++) {
+            spool.append(hits("/events/" + i, "/events/" + i));
+            appended += 2;
+        }
+
+        assertTrue(spool.getDroppedHitCount() > 0);
+        assertTrue(spool.getPendingBytes() <= 4 * 1024, "pending " + spool.getPendingBytes());
+        assertEquals(appended, spool.getDroppedHitCount() + spool.getPendingHits());
+    }
+
+    private HitSpool open(long maxBytes, Consumer<List<EndpointHit>> sink) {
+        HitSpool spool = new HitSpool(StatsClientConfig.builder()
+                .spoolDirectory(directory)
+                .spoolSegmentBytes(1024)
+                .spoolMaxBytes(maxBytes)
+                .spoolReplayInterval(Duration.ofMillis(10))
+                .build(), sink);
+        opened.add(spool);
+        return spool;
+    }
+
+    private Path segment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.filter(p -> p.getFileName().toString().endsWith(".spool")).toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private static int recordLength(Path segment, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(length, position);
+            return 2 * Integer.BYTES + length.flip().getInt();
+        }
+    }
+
+    private static void flipByte(Path segment, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, position);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) (b.get(0) ^ 0xFF)}), position);
+        }
+    }
+
+    private static List<EndpointHit> hits(String... uris) {
+        List<EndpointHit> hits = new ArrayList<>();
+        for (String uri : uris) {
+            hits.add(new EndpointHit(null, "ewm-main-service", uri, "10.0.0.1",
+                    LocalDateTime.of(2026, 1, 1, 12, 0), null));
+        }
+        return hits;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5 seconds");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package ru.practicum.stats.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class StatsQuery {
+    @NotNull
+    @JsonProperty("start")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    LocalDateTime start;
+
+    @NotNull
+    @JsonProperty("end")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    LocalDateTime end;
+
+    /**
+     * Exact uris or prefix patterns ending with {@code *}, such as {@code /events/*}.
+     */
+    @JsonProperty("uris")
+    List<String> uris;
+
+    @JsonProperty("unique")
+    Boolean unique = false;
+
+    @JsonProperty("app")
+    String app;
+
+    @JsonProperty("exact")
+    Boolean exact = false;
+
+    /**
+     * Returns one row per pattern (or per app if uris is not set) instead of one per matched uri.
+     */
+    @JsonProperty("aggregate")
+    Boolean aggregate = false;
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package ru.practicum.stats.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Hits per time bucket. Bucket {@code i} of every series starts at {@code start} plus
+ * {@code i} granularity units; all series have {@code buckets} elements.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TimeSeries {
+    @JsonProperty("start")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    LocalDateTime start;
+
+    @JsonProperty("granularity")
+    String granularity;
+
+    @JsonProperty("buckets")
+    Integer buckets;
+
+    @JsonProperty("series")
+    List<UriTimeSeries> series;
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package ru.practicum.stats.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TopViewStats {
+    @JsonProperty("app")
+    String app;
+
+    @JsonProperty("uri")
+    String uri;
+
+    /**
+     * Estimated hits; never lower than the true count.
+     */
+    @JsonProperty("hits")
+    Long hits;
+
+    /**
+     * Upper bound of the overestimate: the true count is at least {@code hits - maxError}.
+     */
+    @JsonProperty("maxError")
+    Long maxError;
+}
\ No newline at end of file
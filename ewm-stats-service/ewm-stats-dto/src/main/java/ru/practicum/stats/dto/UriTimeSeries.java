@@ -0,0 +1,21 @@
+package ru.practicum.stats.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UriTimeSeries {
+    @JsonProperty("app")
+    String app;
+
+    @JsonProperty("uri")
+    String uri;
+
+    @JsonProperty("hits")
+    long[] hits;
+}
\ No newline at end of file
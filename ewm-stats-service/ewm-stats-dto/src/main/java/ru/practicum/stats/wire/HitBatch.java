@@ -0,0 +1,219 @@
+package ru.practicum.stats.wire;
+
+import ru.practicum.stats.dto.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * Hits stored column by column. App names and uris are kept once per batch and referenced by
+ * index, and timestamps are epoch milliseconds of the UTC-based local time, so a batch of any
+ * size holds a fixed number of arrays instead of an object per hit.
+ */
+public final class HitBatch {
+    private final List<String> apps;
+    private final List<String> uris;
+    private final int[] appIndexes;
+    private final int[] uriIndexes;
+    private final String[] ips;
+    private final long[] epochMillis;
+    private final String[] hitIds;
+    private final boolean hasHitIds;
+
+    private HitBatch(Builder builder) {
+        this.apps = Collections.unmodifiableList(builder.apps);
+        this.uris = Collections.unmodifiableList(builder.uris);
+        this.appIndexes = Arrays.copyOf(builder.appIndexes, builder.size);
+        this.uriIndexes = Arrays.copyOf(builder.uriIndexes, builder.size);
+        this.ips = Arrays.copyOf(builder.ips, builder.size);
+        this.epochMillis = Arrays.copyOf(builder.epochMillis, builder.size);
+        this.hitIds = Arrays.copyOf(builder.hitIds, builder.size);
+        this.hasHitIds = builder.hasHitIds;
+    }
+
+    public static HitBatch of(List<EndpointHit> hits) {
+        Builder builder = new Builder(hits.size());
+        for (EndpointHit hit : hits) {
+            builder.add(builder.addApp(hit.getApp()), builder.addUri(hit.getUri()), hit.getIp(),
+                    toEpochMilli(hit.getTimestamp()), hit.getHitId());
+        }
+        return builder.build();
+    }
+
+    public static long toEpochMilli(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public int size() {
+        return ips.length;
+    }
+
+    /**
+     * Distinct app names of the batch; {@link #appIndex} points into this list.
+     */
+    public List<String> apps() {
+        return apps;
+    }
+
+    /**
+     * Distinct uris of the batch; {@link #uriIndex} points into this list.
+     */
+    public List<String> uris() {
+        return uris;
+    }
+
+    public int appIndex(int hit) {
+        return appIndexes[hit];
+    }
+
+    public int uriIndex(int hit) {
+        return uriIndexes[hit];
+    }
+
+    public String app(int hit) {
+        return apps.get(appIndexes[hit]);
+    }
+
+    public String uri(int hit) {
+        return uris.get(uriIndexes[hit]);
+    }
+
+    public String ip(int hit) {
+        return ips[hit];
+    }
+
+    public long epochMilli(int hit) {
+        return epochMillis[hit];
+    }
+
+    public LocalDateTime timestamp(int hit) {
+        long millis = epochMillis[hit];
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Client-supplied id of the hit, or null if it has none.
+     */
+    public String hitId(int hit) {
+        return hitIds[hit];
+    }
+
+    public boolean hasHitIds() {
+        return hasHitIds;
+    }
+
+    /**
+     * Returns the hits whose positions are set in {@code keep}, in their original order.
+     */
+    public HitBatch select(BitSet keep) {
+        Builder builder = new Builder(keep.cardinality());
+        apps.forEach(builder::addApp);
+        uris.forEach(builder::addUri);
+        for (int i = keep.nextSetBit(0); i >= 0 && i < size(); i = keep.nextSetBit(i + 1)) {
+            builder.add(appIndexes[i], uriIndexes[i], ips[i], epochMillis[i], hitIds[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the hits with each ip replaced by {@code mapper}'s result, leaving out the hits it
+     * maps to null, in their original order. Returns this batch if every ip maps to itself.
+     */
+    public HitBatch mapIps(UnaryOperator<String> mapper) {
+        String[] mapped = new String[size()];
+        boolean changed = false;
+        for (int i = 0; i < mapped.length; i++) {
+            mapped[i] = mapper.apply(ips[i]);
+            changed |= !Objects.equals(ips[i], mapped[i]);
+        }
+        if (!changed) {
+            return this;
+        }
+        Builder builder = new Builder(mapped.length);
+        apps.forEach(builder::addApp);
+        uris.forEach(builder::addUri);
+        for (int i = 0; i < mapped.length; i++) {
+            if (mapped[i] != null) {
+                builder.add(appIndexes[i], uriIndexes[i], mapped[i], epochMillis[i], hitIds[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    public static final class Builder {
+        private final List<String> apps = new ArrayList<>();
+        private final List<String> uris = new ArrayList<>();
+        private final Map<String, Integer> appIndexByName = new HashMap<>();
+        private final Map<String, Integer> uriIndexByName = new HashMap<>();
+        private int[] appIndexes;
+        private int[] uriIndexes;
+        private String[] ips;
+        private long[] epochMillis;
+        private String[] hitIds;
+        private boolean hasHitIds;
+        private int size;
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 1);
+            this.appIndexes = new int[capacity];
+            this.uriIndexes = new int[capacity];
+            this.ips = new String[capacity];
+            this.epochMillis = new long[capacity];
+            this.hitIds = new String[capacity];
+        }
+
+        /**
+         * Adds {@code app} to the app table unless it is there already and returns its index.
+         */
+        public int addApp(String app) {
+            return intern(app, apps, appIndexByName);
+        }
+
+        public int addUri(String uri) {
+            return intern(uri, uris, uriIndexByName);
+        }
+
+        public Builder add(int appIndex, int uriIndex, String ip, long epochMilli, String hitId) {
+            if (appIndex < 0 || appIndex >= apps.size() || uriIndex < 0 || uriIndex >= uris.size()) {
+                throw new IllegalArgumentException("Hit refers to an app or uri outside the batch tables");
+            }
+            if (size == ips.length) {
+                int capacity = size * 2;
+                appIndexes = Arrays.copyOf(appIndexes, capacity);
+                uriIndexes = Arrays.copyOf(uriIndexes, capacity);
+                ips = Arrays.copyOf(ips, capacity);
+                epochMillis = Arrays.copyOf(epochMillis, capacity);
+                hitIds = Arrays.copyOf(hitIds, capacity);
+            }
+            appIndexes[size] = appIndex;
+            uriIndexes[size] = uriIndex;
+            ips[size] = ip;
+            epochMillis[size] = epochMilli;
+            hitIds[size] = hitId;
+            hasHitIds |= hitId != null;
+            size++;
+            return this;
+        }
+
+        public HitBatch build() {
+            return new HitBatch(this);
+        }
+
+        private static int intern(String value, List<String> table, Map<String, Integer> indexByValue) {
+            return indexByValue.computeIfAbsent(value, v -> {
+                table.add(v);
+                return table.size() - 1;
+            });
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,265 @@
+package ru.practicum.stats.wire;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Binary encoding of a {@link HitBatch}, sent with the {@link #MEDIA_TYPE} content type:
+ * <pre>
+ * int     magic "EWMH", byte version
+ * varint  app count, then each app as varint length + UTF-8 bytes
+ * varint  uri count, then each uri the same way
+ * varint  hit count, then per hit:
+ *         varint app index, varint uri index,
+ *         zigzag varint milliseconds since the previous hit (the first since the epoch),
+ *         byte ip length (4 or 16) + raw address bytes,
+ *         varint hit id length + 1 (0 if the hit has none) + UTF-8 bytes (since version 2)
+ * </pre>
+ * Ips must be IPv4 or IPv6 literals; encoding anything else fails with
+ * {@link IllegalArgumentException}, and so does decoding malformed input.
+ */
+public final class HitBatchCodec {
+    public static final String MEDIA_TYPE = "application/x-ewm-hits";
+
+    private static final int MAGIC = 0x45574D48;
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_IDS = 1;
+    private static final int MIN_HIT_BYTES = 8;
+    private static final int MAX_HIT_ID_LENGTH = 64;
+
+    private HitBatchCodec() {
+    }
+
+    public static byte[] encode(HitBatch batch) {
+        Writer writer = new Writer(64 + batch.size() * 12);
+        writer.writeInt(MAGIC);
+        writer.writeByte(VERSION);
+        writer.writeVarLong(batch.apps().size());
+        for (String app : batch.apps()) {
+            writer.writeString(app);
+        }
+        writer.writeVarLong(batch.uris().size());
+        for (String uri : batch.uris()) {
+            writer.writeString(uri);
+        }
+        writer.writeVarLong(batch.size());
+        long previous = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            long millis = batch.epochMilli(i);
+            writer.writeVarLong(batch.appIndex(i));
+            writer.writeVarLong(batch.uriIndex(i));
+            writer.writeVarLong(zigzag(millis - previous));
+            writer.writeIp(batch.ip(i));
+            writer.writeHitId(batch.hitId(i));
+            previous = millis;
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes straight into the columns of a {@link HitBatch}; the only per-hit allocations are
+     * the ip and hit id strings.
+     */
+    public static HitBatch decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a hit batch");
+            }
+            byte version = buffer.get();
+            if (version != VERSION && version != VERSION_WITHOUT_IDS) {
+                throw new IllegalArgumentException("Unsupported hit batch version " + version);
+            }
+            String[] apps = readTable(buffer, "app");
+            String[] uris = readTable(buffer, "uri");
+            int size = readCount(buffer, version == VERSION ? MIN_HIT_BYTES + 1 : MIN_HIT_BYTES, "hit");
+
+            HitBatch.Builder builder = new HitBatch.Builder(size);
+            int[] appIndexes = new int[apps.length];
+            for (int i = 0; i < apps.length; i++) {
+                appIndexes[i] = builder.addApp(apps[i]);
+            }
+            int[] uriIndexes = new int[uris.length];
+            for (int i = 0; i < uris.length; i++) {
+                uriIndexes[i] = builder.addUri(uris[i]);
+            }
+
+            long millis = 0;
+            for (int i = 0; i < size; i++) {
+                int app = index(buffer, appIndexes);
+                int uri = index(buffer, uriIndexes);
+                millis += unzigzag(readVarLong(buffer));
+                String ip = readIp(buffer);
+                builder.add(app, uri, ip, millis, version == VERSION ? readHitId(buffer) : null);
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Unexpected bytes after the last hit");
+            }
+            return builder.build();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Hit batch is truncated");
+        }
+    }
+
+    private static String[] readTable(ByteBuffer buffer, String name) {
+        String[] values = new String[readCount(buffer, 2, name)];
+        for (int i = 0; i < values.length; i++) {
+            String value = readString(buffer, readCount(buffer, 1, name + " byte"));
+            if (value.isBlank()) {
+                throw new IllegalArgumentException("Hit batch contains a blank " + name);
+            }
+            values[i] = value;
+        }
+        return values;
+    }
+
+    private static String readHitId(ByteBuffer buffer) {
+        long length = readVarLong(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > 4L * MAX_HIT_ID_LENGTH || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid hit id length " + length);
+        }
+        String hitId = readString(buffer, (int) length);
+        if (hitId.length() > MAX_HIT_ID_LENGTH) {
+            throw new IllegalArgumentException("Hit id is longer than " + MAX_HIT_ID_LENGTH + " characters");
+        }
+        return hitId;
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Reads a count of items that take at least {@code minBytes} each, so a corrupt count cannot
+     * make the decoder allocate more than the input could hold.
+     */
+    private static int readCount(ByteBuffer buffer, int minBytes, String name) {
+        long count = readVarLong(buffer);
+        if (count < 0 || count > buffer.remaining() / minBytes) {
+            throw new IllegalArgumentException("Invalid " + name + " count " + count);
+        }
+        return (int) count;
+    }
+
+    private static int index(ByteBuffer buffer, int[] table) {
+        long index = readVarLong(buffer);
+        if (index < 0 || index >= table.length) {
+            throw new IllegalArgumentException("Hit refers to a missing table entry " + index);
+        }
+        return table[(int) index];
+    }
+
+    private static String readIp(ByteBuffer buffer) {
+        int length = buffer.get();
+        if (length == 4) {
+            return (buffer.get() & 0xFF) + "." + (buffer.get() & 0xFF) + "."
+                   + (buffer.get() & 0xFF) + "." + (buffer.get() & 0xFF);
+        }
+        if (length != 16) {
+            throw new IllegalArgumentException("Invalid ip length " + length);
+        }
+        byte[] address = new byte[16];
+        buffer.get(address);
+        return IpLiterals.format(address);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer {
+        private byte[] bytes;
+        private int size;
+
+        private Writer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeInt(int value) {
+            writeByte(value >>> 24);
+            writeByte(value >>> 16);
+            writeByte(value >>> 8);
+            writeByte(value);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            writeBytes(utf8);
+        }
+
+        private void writeHitId(String hitId) {
+            if (hitId == null) {
+                writeByte(0);
+                return;
+            }
+            byte[] utf8 = hitId.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            writeBytes(utf8);
+        }
+
+        private void writeBytes(byte[] value) {
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        private void writeIp(String ip) {
+            if (ip == null) {
+                throw new IllegalArgumentException("Hit has no ip");
+            }
+            byte[] address = IpLiterals.parse(ip);
+            if (address == null) {
+                throw new IllegalArgumentException("Not an ip literal: " + ip);
+            }
+            writeByte(address.length);
+            writeBytes(address);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package ru.practicum.stats.wire;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Parses ip literals without ever resolving a host name: dotted-quad IPv4, and IPv6 in any form
+ * {@link InetAddress} accepts for a literal.
+ */
+public final class IpLiterals {
+
+    private IpLiterals() {
+    }
+
+    /**
+     * Returns the 4 or 16 address bytes of {@code ip}, or null if it is not an ip literal.
+     */
+    public static byte[] parse(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        byte[] ipv4 = parseIpv4(ip);
+        if (ipv4 != null) {
+            return ipv4;
+        }
+        // host names cannot contain ':', so this never resolves a name
+        if (ip.indexOf(':') < 0) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(ip).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the client address in {@code ip} in canonical form: the ip itself, or the first
+     * entry of a comma-separated X-Forwarded-For list. Returns null if that is not an ip literal.
+     */
+    public static String normalize(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        int comma = ip.indexOf(',');
+        String client = (comma < 0 ? ip : ip.substring(0, comma)).trim();
+        byte[] address = parse(client);
+        if (address == null) {
+            return null;
+        }
+        String canonical = format(address);
+        return canonical.equals(ip) ? ip : canonical;
+    }
+
+    /**
+     * Formats 4 or 16 address bytes the way {@link HitBatchCodec} decodes them.
+     */
+    static String format(byte[] address) {
+        if (address.length == 4) {
+            return (address[0] & 0xFF) + "." + (address[1] & 0xFF) + "."
+                   + (address[2] & 0xFF) + "." + (address[3] & 0xFF);
+        }
+        try {
+            return InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid ip address", e);
+        }
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        int[] octets = new int[4];
+        int octet = 0;
+        int digits = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9' && digits < 3) {
+                octets[octet] = octets[octet] * 10 + (c - '0');
+                digits++;
+            } else if (c == '.' && digits > 0 && octet < 3) {
+                octet++;
+                digits = 0;
+            } else {
+                return null;
+            }
+        }
+        if (octet != 3 || digits == 0) {
+            return null;
+        }
+        byte[] address = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            if (octets[i] > 255) {
+                return null;
+            }
+            address[i] = (byte) octets[i];
+        }
+        return address;
+    }
+}
\ No newline at end of file
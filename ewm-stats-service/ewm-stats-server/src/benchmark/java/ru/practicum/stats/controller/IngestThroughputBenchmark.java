@@ -0,0 +1,138 @@
+package ru.practicum.stats.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.stats.dto.EndpointHit;
+import ru.practicum.stats.wire.HitBatch;
+import ru.practicum.stats.wire.HitBatchCodec;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures ingest throughput over HTTP against embedded Postgres: one {@code POST /hit} per hit
+ * versus {@code POST /hit/batch} in batches of the client's default size, as JSON and as
+ * {@link HitBatchCodec#MEDIA_TYPE}. A single client sends the requests one after another. Run
+ * with {@code mvn -P benchmark test}; {@code -Dbenchmark.ingest.sizes=1000,10000} overrides the
+ * hit counts.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.jpa.show-sql=false")
+class IngestThroughputBenchmark {
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+    private static final int BATCH_SIZE = 500;
+    private static final int WARMUP_HITS = 5_000;
+
+    private static EmbeddedPostgres postgres;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private LocalDateTime nextTimestamp = LocalDateTime.now().withNano(0);
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void singleVersusBatched() throws Exception {
+        sendSingle(hits(WARMUP_HITS));
+        sendBatchedJson(hits(WARMUP_HITS));
+        sendBatchedBinary(hits(WARMUP_HITS));
+
+        System.out.printf("%8s %14s %14s %14s%n", "hits", "single/s", "batch json/s", "batch binary/s");
+        for (int size : sizes()) {
+            double single = throughput(size, sendSingle(hits(size)));
+            double json = throughput(size, sendBatchedJson(hits(size)));
+            double binary = throughput(size, sendBatchedBinary(hits(size)));
+            System.out.printf("%8d %14.0f %14.0f %14.0f%n", size, single, json, binary);
+            assertTrue(json > single);
+            assertTrue(binary > single);
+        }
+    }
+
+    private Duration sendSingle(List<EndpointHit> hits) throws Exception {
+        long started = System.nanoTime();
+        for (EndpointHit hit : hits) {
+            post("/hit", "application/json", MAPPER.writeValueAsBytes(hit));
+        }
+        return Duration.ofNanos(System.nanoTime() - started);
+    }
+
+    private Duration sendBatchedJson(List<EndpointHit> hits) throws Exception {
+        long started = System.nanoTime();
+        for (int from = 0; from < hits.size(); from += BATCH_SIZE) {
+            List<EndpointHit> batch = hits.subList(from, Math.min(hits.size(), from + BATCH_SIZE));
+            post("/hit/batch", "application/json", MAPPER.writeValueAsBytes(batch));
+        }
+        return Duration.ofNanos(System.nanoTime() - started);
+    }
+
+    private Duration sendBatchedBinary(List<EndpointHit> hits) throws Exception {
+        long started = System.nanoTime();
+        for (int from = 0; from < hits.size(); from += BATCH_SIZE) {
+            List<EndpointHit> batch = hits.subList(from, Math.min(hits.size(), from + BATCH_SIZE));
+            post("/hit/batch", HitBatchCodec.MEDIA_TYPE, HitBatchCodec.encode(HitBatch.of(batch)));
+        }
+        return Duration.ofNanos(System.nanoTime() - started);
+    }
+
+    private void post(String path, String contentType, byte[] body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        assertEquals(201, http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    private List<EndpointHit> hits(int count) {
+        List<EndpointHit> hits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String ip = "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + (i * 7919 % 300 + 1), ip,
+                    nextTimestamp, null));
+            if (i % 100 == 99) {
+                nextTimestamp = nextTimestamp.plusSeconds(1);
+            }
+        }
+        return hits;
+    }
+
+    private static double throughput(int hits, Duration elapsed) {
+        return hits * 1e9 / elapsed.toNanos();
+    }
+
+    private static int[] sizes() {
+        return Arrays.stream(System.getProperty("benchmark.ingest.sizes", "1000,10000,100000").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+}
\ No newline at end of file
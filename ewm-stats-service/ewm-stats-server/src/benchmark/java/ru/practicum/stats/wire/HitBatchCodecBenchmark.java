@@ -0,0 +1,111 @@
+package ru.practicum.stats.wire;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.practicum.stats.dto.EndpointHit;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the JSON and {@link HitBatchCodec} encodings of a hit batch the way the client and
+ * server use them: encoding starts from the client's {@link EndpointHit} list and decoding ends
+ * with the {@link HitBatch} the server ingests. Run with {@code mvn -P benchmark test}; the
+ * payload sizes are printed before the JMH results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HitBatchCodecBenchmark {
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+    private static final TypeReference<List<EndpointHit>> HIT_LIST = new TypeReference<>() {
+    };
+    private static final int[] SIZES = {100, 500, 5000};
+
+    @Param({"100", "500", "5000"})
+    int size;
+
+    List<EndpointHit> hits;
+    byte[] json;
+    byte[] binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        hits = hits(size);
+        json = MAPPER.writeValueAsBytes(hits);
+        binary = HitBatchCodec.encode(HitBatch.of(hits));
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return MAPPER.writeValueAsBytes(hits);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return HitBatchCodec.encode(HitBatch.of(hits));
+    }
+
+    @Benchmark
+    public HitBatch decodeJson() throws IOException {
+        return HitBatch.of(MAPPER.readValue(json, HIT_LIST));
+    }
+
+    @Benchmark
+    public HitBatch decodeBinary() {
+        return HitBatchCodec.decode(binary);
+    }
+
+    @Test
+    void run() throws Exception {
+        for (int hitCount : SIZES) {
+            List<EndpointHit> batch = hits(hitCount);
+            int jsonBytes = MAPPER.writeValueAsBytes(batch).length;
+            int binaryBytes = HitBatchCodec.encode(HitBatch.of(batch)).length;
+            System.out.printf("%5d hits: json %8d bytes, binary %7d bytes (%.1f%%)%n", hitCount, jsonBytes,
+                    binaryBytes, 100.0 * binaryBytes / jsonBytes);
+            assertTrue(binaryBytes < jsonBytes);
+        }
+        new Runner(new OptionsBuilder().include(HitBatchCodecBenchmark.class.getName()).build()).run();
+    }
+
+    /**
+     * Hits shaped like the main service's: one app, a few hundred event pages, mostly IPv4
+     * clients and timestamps a few milliseconds apart.
+     */
+    private static List<EndpointHit> hits(int count) {
+        List<EndpointHit> hits = new ArrayList<>(count);
+        LocalDateTime timestamp = LocalDateTime.of(2026, 1, 1, 12, 0);
+        for (int i = 0; i < count; i++) {
+            String ip = i % 10 == 0
+                    ? "2001:db8::" + Integer.toHexString(i)
+                    : "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + (i * 7919 % 300 + 1), ip,
+                    timestamp.plusNanos(i * 3_000_000L), null));
+        }
+        return hits;
+    }
+}
\ No newline at end of file
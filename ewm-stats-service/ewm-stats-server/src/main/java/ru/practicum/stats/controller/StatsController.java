@@ -1,22 +1,39 @@
 package ru.practicum.stats.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.stats.dto.EndpointHit;
+import ru.practicum.stats.dto.StatsQuery;
+import ru.practicum.stats.dto.TimeSeries;
+import ru.practicum.stats.dto.TopViewStats;
 import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.stats.model.RollupGranularity;
+import ru.practicum.stats.service.IngestAdmissionControl;
 import ru.practicum.stats.service.StatsService;
+import ru.practicum.stats.wire.HitBatch;
+import ru.practicum.stats.wire.HitBatchCodec;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -27,11 +44,27 @@ import java.util.List;
 public class StatsController {
 
     StatsService statsService;
+    IngestAdmissionControl ingestAdmissionControl;
+    ObjectMapper objectMapper;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
 
     @PostMapping("/hit")
     public ResponseEntity<Void> hit(@Valid @RequestBody EndpointHit endpointHit) {
-        statsService.saveHit(endpointHit);
+        ingestAdmissionControl.run(() -> statsService.saveHit(endpointHit));
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    @PostMapping("/hit/batch")
+    public ResponseEntity<Void> hitBatch(@RequestBody List<@Valid EndpointHit> endpointHits) {
+        ingestAdmissionControl.run(() -> statsService.saveHits(endpointHits));
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    @PostMapping(value = "/hit/batch", consumes = HitBatchCodec.MEDIA_TYPE)
+    public ResponseEntity<Void> hitBatchBinary(@RequestBody byte[] body) {
+        HitBatch batch = HitBatchCodec.decode(body);
+        ingestAdmissionControl.run(() -> statsService.saveHits(batch));
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
@@ -40,25 +73,118 @@ public class StatsController {
             @RequestParam(required = true) String start,
             @RequestParam(required = true) String end,
             @RequestParam(required = false) List<String> uris,
-            @RequestParam(required = false, defaultValue = "false") Boolean unique) {
+            @RequestParam(required = false, defaultValue = "false") Boolean unique,
+            @RequestParam(required = false, defaultValue = "false") Boolean exact,
+            @RequestParam(required = false, defaultValue = "false") Boolean aggregate) {
+
+        LocalDateTime startTime = parseTime(start);
+        LocalDateTime endTime = parseTime(end);
+        validateRange(startTime, endTime);
+
+        List<ViewStats> stats = statsService.queryStats(
+                new StatsQuery(startTime, endTime, uris, unique, null, exact, aggregate));
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamStats(
+            @RequestParam(required = true) String start,
+            @RequestParam(required = true) String end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(required = false, defaultValue = "false") Boolean unique,
+            @RequestParam(required = false, defaultValue = "false") Boolean exact,
+            @RequestParam(required = false, defaultValue = "false") Boolean aggregate) {
+        LocalDateTime startTime = parseTime(start);
+        LocalDateTime endTime = parseTime(end);
+        validateRange(startTime, endTime);
+        return stream(new StatsQuery(startTime, endTime, uris, unique, null, exact, aggregate));
+    }
+
+    @GetMapping(value = "/stats", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamStatsByParam(
+            @RequestParam(required = true) String start,
+            @RequestParam(required = true) String end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(required = false, defaultValue = "false") Boolean unique,
+            @RequestParam(required = false, defaultValue = "false") Boolean exact,
+            @RequestParam(required = false, defaultValue = "false") Boolean aggregate) {
+        return streamStats(start, end, uris, unique, exact, aggregate);
+    }
+
+    @GetMapping("/stats/timeseries")
+    public ResponseEntity<TimeSeries> getTimeSeries(
+            @RequestParam(required = true) String start,
+            @RequestParam(required = true) String end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(required = false, defaultValue = "hour") String granularity,
+            @RequestParam(required = false, defaultValue = "false") Boolean unique,
+            @RequestParam(required = false) String app) {
+        LocalDateTime startTime = parseTime(start);
+        LocalDateTime endTime = parseTime(end);
+        validateRange(startTime, endTime);
+
+        RollupGranularity rollupGranularity;
+        try {
+            rollupGranularity = RollupGranularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Granularity must be minute, hour or day");
+        }
+        return ResponseEntity.ok(statsService.getTimeSeries(startTime, endTime, uris, rollupGranularity,
+                Boolean.TRUE.equals(unique), app));
+    }
+
+    @GetMapping("/stats/top")
+    public ResponseEntity<List<TopViewStats>> getTop(
+            @RequestParam(required = false) String app,
+            @RequestParam(required = false, defaultValue = "1h") String window,
+            @RequestParam(required = false, defaultValue = "10") int n) {
+        Duration windowDuration;
+        try {
+            windowDuration = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid window format");
+        }
+        return ResponseEntity.ok(statsService.getTop(app, windowDuration, n));
+    }
+
+    @PostMapping("/stats/query")
+    public ResponseEntity<List<ViewStats>> queryStats(@Valid @RequestBody StatsQuery query) {
+        if (query.getStart().isAfter(query.getEnd())) {
+            throw new RuntimeException("Start date must be before end date");
+        }
+        return ResponseEntity.ok(statsService.queryStats(query));
+    }
 
-        String decodedStart = URLDecoder.decode(start, StandardCharsets.UTF_8);
-        String decodedEnd = URLDecoder.decode(end, StandardCharsets.UTF_8);
+    private ResponseEntity<StreamingResponseBody> stream(StatsQuery query) {
+        ObjectWriter writer = objectMapper.writerFor(ViewStats.class);
+        StreamingResponseBody body = out -> {
+            OutputStream buffered = new BufferedOutputStream(out, STREAM_BUFFER_SIZE);
+            statsService.streamStats(query, stats -> {
+                try {
+                    buffered.write(writer.writeValueAsBytes(stats));
+                    buffered.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            buffered.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
 
-        LocalDateTime startTime;
-        LocalDateTime endTime;
+    private static LocalDateTime parseTime(String value) {
         try {
-            startTime = LocalDateTime.parse(decodedStart, FORMATTER);
-            endTime = LocalDateTime.parse(decodedEnd, FORMATTER);
+            return LocalDateTime.parse(URLDecoder.decode(value, StandardCharsets.UTF_8), FORMATTER);
         } catch (Exception e) {
             throw new RuntimeException("Invalid date format");
         }
+    }
 
-        if (startTime.isAfter(endTime)) {
+    private static void validateRange(LocalDateTime start, LocalDateTime end) {
+        if (start.isAfter(end)) {
             throw new RuntimeException("Start date must be before end date");
         }
-
-        List<ViewStats> stats = statsService.getStats(startTime, endTime, uris, unique);
-        return ResponseEntity.ok(stats);
     }
 }
\ No newline at end of file
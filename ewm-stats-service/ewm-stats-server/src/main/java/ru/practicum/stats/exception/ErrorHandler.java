@@ -1,7 +1,9 @@
 package ru.practicum.stats.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -17,4 +19,12 @@ public class ErrorHandler {
     public void handleException(Exception e) {
         log.error("Error: {}", e.getMessage());
     }
+
+    @ExceptionHandler(IngestRejectedException.class)
+    public ResponseEntity<Void> handleIngestRejected(IngestRejectedException e) {
+        log.debug("Ingest rejected: {}", e.getMessage());
+        return ResponseEntity.status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package ru.practicum.stats.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+/**
+ * Ingest was turned away to protect the server; the client should retry after
+ * {@link #getRetryAfter()}.
+ */
+public class IngestRejectedException extends RuntimeException {
+    private final HttpStatus status;
+    private final Duration retryAfter;
+
+    public IngestRejectedException(String message, HttpStatus status, Duration retryAfter) {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
\ No newline at end of file
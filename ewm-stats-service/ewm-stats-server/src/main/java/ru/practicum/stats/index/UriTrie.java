@@ -0,0 +1,113 @@
+package ru.practicum.stats.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Radix trie of strings: each edge holds a run of characters, so a chain of nodes with a single
+ * child is stored as one node. Prefix lookups walk at most {@code prefix.length()} characters
+ * and then visit only the matching subtree. Not thread safe.
+ */
+public class UriTrie {
+    private final Node root = new Node("", false);
+    private int size;
+
+    /**
+     * Adds {@code key}; returns false if it was already present.
+     */
+    public boolean add(String key) {
+        Node node = root;
+        int offset = 0;
+        while (offset < key.length()) {
+            Node child = node.children.get(key.charAt(offset));
+            if (child == null) {
+                node.children.put(key.charAt(offset), new Node(key.substring(offset), true));
+                size++;
+                return true;
+            }
+            int common = commonPrefix(child.label, key, offset);
+            if (common < child.label.length()) {
+                Node split = new Node(child.label.substring(0, common), false);
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                node.children.put(split.label.charAt(0), split);
+                child = split;
+            }
+            node = child;
+            offset += common;
+        }
+        if (node.terminal) {
+            return false;
+        }
+        node.terminal = true;
+        size++;
+        return true;
+    }
+
+    /**
+     * Returns the keys starting with {@code prefix} in lexicographic order, stopping after
+     * {@code limit + 1} so callers can tell that the limit was exceeded.
+     */
+    public List<String> findByPrefix(String prefix, int limit) {
+        Node node = root;
+        StringBuilder path = new StringBuilder();
+        int offset = 0;
+        while (offset < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(offset));
+            if (child == null) {
+                return List.of();
+            }
+            int common = commonPrefix(child.label, prefix, offset);
+            if (offset + common < prefix.length() && common < child.label.length()) {
+                return List.of();
+            }
+            path.append(child.label);
+            node = child;
+            offset += common;
+        }
+        List<String> result = new ArrayList<>();
+        collect(node, path, result, limit + 1);
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static void collect(Node node, StringBuilder path, List<String> result, int max) {
+        if (node.terminal && result.size() < max) {
+            result.add(path.toString());
+        }
+        for (Node child : node.children.values()) {
+            if (result.size() >= max) {
+                return;
+            }
+            int length = path.length();
+            path.append(child.label);
+            collect(child, path, result, max);
+            path.setLength(length);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new TreeMap<>();
+        private String label;
+        private boolean terminal;
+
+        private Node(String label, boolean terminal) {
+            this.label = label;
+            this.terminal = terminal;
+        }
+    }
+}
\ No newline at end of file
@@ -10,6 +10,7 @@ import java.time.LocalDateTime;
 
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.ColumnTransformer;
 
 @Setter
 @Getter
@@ -23,13 +24,14 @@ public class EndpointHitEntity {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     Long id;
 
-    @Column(nullable = false)
-    String app;
+    @Column(name = "app_id", nullable = false)
+    Integer appId;
 
-    @Column(nullable = false)
-    String uri;
+    @Column(name = "uri_id", nullable = false)
+    Integer uriId;
 
     @Column(nullable = false)
+    @ColumnTransformer(read = "host(ip)", write = "CAST(? AS inet)")
     String ip;
 
     @Column(nullable = false)
@@ -0,0 +1,6 @@
+package ru.practicum.stats.model;
+
+public enum HitRetentionAction {
+    DROP,
+    DETACH
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package ru.practicum.stats.model;
+
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    DAY("hit_rollup_day", ChronoUnit.DAYS, true),
+    HOUR("hit_rollup_hour", ChronoUnit.HOURS, true),
+    MINUTE("hit_rollup_minute", ChronoUnit.MINUTES, false);
+
+    private final String table;
+    private final ChronoUnit unit;
+    private final boolean sketched;
+
+    RollupGranularity(String table, ChronoUnit unit, boolean sketched) {
+        this.table = table;
+        this.unit = unit;
+        this.sketched = sketched;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public ChronoUnit getUnit() {
+        return unit;
+    }
+
+    public boolean isSketched() {
+        return sketched;
+    }
+}
\ No newline at end of file
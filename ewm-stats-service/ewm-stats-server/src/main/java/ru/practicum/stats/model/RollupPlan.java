@@ -0,0 +1,71 @@
+package ru.practicum.stats.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits a time range into whole day, hour and minute buckets, leaving only the ragged
+ * sub-minute edges to be counted from raw hits. Each level ends up with at most two ranges.
+ */
+public class RollupPlan {
+    private final Map<RollupGranularity, List<TimeRange>> buckets = new EnumMap<>(RollupGranularity.class);
+    private final List<TimeRange> raw;
+
+    private RollupPlan(TimeRange range, Set<RollupGranularity> granularities) {
+        List<TimeRange> pending = range.isEmpty() ? List.of() : List.of(range);
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            if (!granularities.contains(granularity)) {
+                buckets.put(granularity, List.of());
+                continue;
+            }
+            List<TimeRange> coarse = new ArrayList<>(2);
+            List<TimeRange> rest = new ArrayList<>(2);
+            for (TimeRange r : pending) {
+                TimeRange aligned = new TimeRange(
+                        ceil(r.from(), granularity), r.to().truncatedTo(granularity.getUnit()));
+                if (aligned.isEmpty()) {
+                    rest.add(r);
+                    continue;
+                }
+                coarse.add(aligned);
+                addIfNotEmpty(rest, new TimeRange(r.from(), aligned.from()));
+                addIfNotEmpty(rest, new TimeRange(aligned.to(), r.to()));
+            }
+            buckets.put(granularity, coarse);
+            pending = rest;
+        }
+        this.raw = pending;
+    }
+
+    public static RollupPlan of(TimeRange range) {
+        return new RollupPlan(range, EnumSet.allOf(RollupGranularity.class));
+    }
+
+    public static RollupPlan of(TimeRange range, Set<RollupGranularity> granularities) {
+        return new RollupPlan(range, granularities);
+    }
+
+    public List<TimeRange> getBuckets(RollupGranularity granularity) {
+        return buckets.get(granularity);
+    }
+
+    public List<TimeRange> getRaw() {
+        return raw;
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, RollupGranularity granularity) {
+        LocalDateTime truncated = time.truncatedTo(granularity.getUnit());
+        return truncated.equals(time) ? time : truncated.plus(1, granularity.getUnit());
+    }
+
+    private static void addIfNotEmpty(List<TimeRange> ranges, TimeRange range) {
+        if (!range.isEmpty()) {
+            ranges.add(range);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package ru.practicum.stats.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Half-open time interval {@code [from, to)}.
+ */
+public record TimeRange(LocalDateTime from, LocalDateTime to) {
+    public boolean isEmpty() {
+        return !from.isBefore(to);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package ru.practicum.stats.repository;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.wire.HitBatch;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class HitBatchRepository {
+    private static final int BATCH_SIZE = 1000;
+    private static final String INSERT_SQL =
+            "INSERT INTO endpoint_hits (app_id, uri_id, ip, timestamp) VALUES (?, ?, CAST(? AS inet), ?)";
+
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the batch straight from its columns; dictionary ids are looked up once per
+     * distinct app and uri rather than once per hit.
+     */
+    public void saveAll(HitBatch batch, Map<String, Integer> appIds, Map<String, Integer> uriIds) {
+        int[] appIdByIndex = ids(batch.apps(), appIds);
+        int[] uriIdByIndex = ids(batch.uris(), uriIds);
+        for (int from = 0; from < batch.size(); from += BATCH_SIZE) {
+            int offset = from;
+            int count = Math.min(BATCH_SIZE, batch.size() - from);
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int hit = offset + i;
+                    ps.setInt(1, appIdByIndex[batch.appIndex(hit)]);
+                    ps.setInt(2, uriIdByIndex[batch.uriIndex(hit)]);
+                    ps.setString(3, batch.ip(hit));
+                    // binary batches carry milliseconds; /stats and the rollups assume whole seconds
+                    ps.setTimestamp(4, Timestamp.valueOf(batch.timestamp(hit).truncatedTo(ChronoUnit.SECONDS)));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return count;
+                }
+            });
+        }
+    }
+
+    private static int[] ids(List<String> names, Map<String, Integer> idsByName) {
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idsByName.get(names.get(i));
+        }
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package ru.practicum.stats.repository;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class HitDictionaryRepository {
+    NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Map<String, Integer> getOrCreateAppIds(Collection<String> names) {
+        return getOrCreate("hit_apps", "name", names);
+    }
+
+    public Map<String, Integer> getOrCreateUriIds(Collection<String> uris) {
+        return getOrCreate("hit_uris", "uri", uris);
+    }
+
+    public Map<String, Integer> findAppIds(Collection<String> names) {
+        return find("hit_apps", "name", new MapSqlParameterSource("values", names.toArray(new String[0])));
+    }
+
+    public Map<String, Integer> findUriIds(Collection<String> uris) {
+        return find("hit_uris", "uri", new MapSqlParameterSource("values", uris.toArray(new String[0])));
+    }
+
+    /**
+     * Returns the uris with an id greater than {@code afterId}, in id order.
+     */
+    public Map<String, Integer> findUrisAfter(int afterId) {
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, uri FROM hit_uris WHERE id > :afterId ORDER BY id",
+                new MapSqlParameterSource("afterId", afterId), rs -> {
+                    ids.put(rs.getString("uri"), rs.getInt("id"));
+                });
+        return ids;
+    }
+
+    private Map<String, Integer> getOrCreate(String table, String column, Collection<String> values) {
+        // sorted so that concurrent inserts take unique index locks in the same order
+        MapSqlParameterSource params = new MapSqlParameterSource("values",
+                values.stream().distinct().sorted().toArray(String[]::new));
+        jdbcTemplate.update("INSERT INTO " + table + " (" + column + ") " +
+                            "SELECT v FROM unnest(CAST(:values AS text[])) AS v " +
+                            "WHERE NOT EXISTS (SELECT 1 FROM " + table + " t WHERE t." + column + " = v) " +
+                            "ON CONFLICT (" + column + ") DO NOTHING", params);
+        return find(table, column, params);
+    }
+
+    private Map<String, Integer> find(String table, String column, MapSqlParameterSource params) {
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, " + column + " FROM " + table +
+                           " WHERE " + column + " = ANY(CAST(:values AS text[]))", params, rs -> {
+                    ids.put(rs.getString(column), rs.getInt("id"));
+                });
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package ru.practicum.stats.repository;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class HitIdRepository {
+    NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Records the ids that are not there yet and returns them; the others were claimed before.
+     * A concurrent claim of the same id waits for the other transaction and then skips it.
+     */
+    public Set<String> claim(Collection<String> hitIds, LocalDateTime receivedAt) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", hitIds.toArray(new String[0]))
+                .addValue("receivedAt", Timestamp.valueOf(receivedAt));
+        Set<String> claimed = new HashSet<>();
+        // sorted so that concurrent claims take unique index locks in the same order
+        jdbcTemplate.query("INSERT INTO hit_ids (hit_id, received_at) " +
+                           "SELECT id, :receivedAt FROM unnest(CAST(:ids AS text[])) AS t(id) ORDER BY id " +
+                           "ON CONFLICT (hit_id) DO NOTHING RETURNING hit_id", params, rs -> {
+                    claimed.add(rs.getString("hit_id"));
+                });
+        return claimed;
+    }
+
+    /**
+     * Returns the ids that have been claimed; ids claimed by transactions still in progress are
+     * not visible yet.
+     */
+    public Set<String> findClaimed(Collection<String> hitIds) {
+        Set<String> found = new HashSet<>();
+        jdbcTemplate.query("SELECT hit_id FROM hit_ids WHERE hit_id = ANY(CAST(:ids AS text[]))",
+                new MapSqlParameterSource("ids", hitIds.toArray(new String[0])), rs -> {
+                    found.add(rs.getString("hit_id"));
+                });
+        return found;
+    }
+
+    public int deleteBefore(LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM hit_ids WHERE received_at < :before",
+                new MapSqlParameterSource("before", Timestamp.valueOf(before)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,203 @@
+package ru.practicum.stats.repository;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * DDL for the daily range partitions of {@code endpoint_hits}. Partitions are named
+ * {@code endpoint_hits_pYYYYMMDD} and cover {@code [day, day + 1)}; rows outside every
+ * partition land in {@code endpoint_hits_default}.
+ */
+@Repository
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class HitPartitionRepository {
+    private static final String PARENT = "endpoint_hits";
+    private static final String DEFAULT_PARTITION = "endpoint_hits_default";
+    private static final String LEGACY = "endpoint_hits_legacy";
+    private static final String PARTITION_PREFIX = "endpoint_hits_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final long MAINTENANCE_LOCK_ID = 7_240_412L;
+
+    JdbcTemplate jdbcTemplate;
+
+    public void lockMaintenance() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + MAINTENANCE_LOCK_ID + ")");
+    }
+
+    public boolean exists() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, PARENT));
+    }
+
+    /**
+     * Whether {@code endpoint_hits} is partitioned and dictionary encoded, as opposed to a
+     * table left by an older version.
+     */
+    public boolean isCurrentLayout() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT c.relkind = 'p' AND EXISTS (SELECT 1 FROM pg_attribute a " +
+                "WHERE a.attrelid = c.oid AND a.attname = 'app_id' AND NOT a.attisdropped) " +
+                "FROM pg_class c WHERE c.oid = to_regclass(?)", Boolean.class, PARENT));
+    }
+
+    /**
+     * Moves an outdated {@code endpoint_hits} (and its partitions, if any) out of the way
+     * under {@code endpoint_hits_legacy*} names so the current layout can be created.
+     */
+    public void renameToLegacy() {
+        for (String child : findChildTables()) {
+            jdbcTemplate.execute("ALTER TABLE " + child + " RENAME TO " + LEGACY + child.substring(PARENT.length()));
+        }
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " RENAME TO " + LEGACY);
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_endpoint_hits_timestamp_brin, idx_endpoint_hits_uri_timestamp, " +
+                             "idx_endpoint_hits_uri_id_timestamp");
+    }
+
+    public void createTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + PARENT + " (" +
+                             "id BIGINT NOT NULL DEFAULT nextval('endpoint_hits_seq'), " +
+                             "app_id INT NOT NULL, " +
+                             "uri_id INT NOT NULL, " +
+                             "ip INET NOT NULL, " +
+                             "timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL, " +
+                             "PRIMARY KEY (id, timestamp)" +
+                             ") PARTITION BY RANGE (timestamp)");
+    }
+
+    public boolean legacyTableExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, LEGACY));
+    }
+
+    /**
+     * Copies {@code endpoint_hits_legacy} into the current layout, interning app and uri names
+     * and creating a partition for every day that has data, then drops it. Ids are kept and the
+     * sequence moved past them. IPs that are not valid addresses are stored as 0.0.0.0.
+     */
+    public void copyLegacyTable() {
+        jdbcTemplate.queryForObject("SELECT setval('endpoint_hits_seq', COALESCE(MAX(id), 0) + 1, false) FROM " +
+                                    LEGACY, Long.class);
+        List<LocalDate> days = jdbcTemplate.queryForList(
+                "SELECT DISTINCT CAST(timestamp AS date) FROM " + LEGACY, LocalDate.class);
+        for (LocalDate day : days) {
+            createPartition(day);
+        }
+        jdbcTemplate.execute("INSERT INTO hit_apps (name) SELECT DISTINCT app FROM " + LEGACY +
+                             " ON CONFLICT (name) DO NOTHING");
+        jdbcTemplate.execute("INSERT INTO hit_uris (uri) SELECT DISTINCT uri FROM " + LEGACY +
+                             " ON CONFLICT (uri) DO NOTHING");
+        jdbcTemplate.execute("INSERT INTO " + PARENT + " (id, app_id, uri_id, ip, timestamp) " +
+                             "SELECT l.id, a.id, u.id, " +
+                             "CASE WHEN pg_input_is_valid(l.ip, 'inet') THEN CAST(l.ip AS inet) " +
+                             "ELSE CAST('0.0.0.0' AS inet) END, l.timestamp " +
+                             "FROM " + LEGACY + " l " +
+                             "JOIN hit_apps a ON a.name = l.app " +
+                             "JOIN hit_uris u ON u.uri = l.uri");
+        jdbcTemplate.execute("DROP TABLE " + LEGACY);
+    }
+
+    public void createDefaultPartitionAndIndexes() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION +
+                             " PARTITION OF " + PARENT + " DEFAULT");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_endpoint_hits_timestamp_brin ON " + PARENT +
+                             " USING BRIN (timestamp)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_endpoint_hits_uri_id_timestamp ON " + PARENT +
+                             " (uri_id, timestamp)");
+    }
+
+    public List<LocalDate> findPartitionDays() {
+        return findChildTables().stream()
+                .map(HitPartitionRepository::parseDay)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+    }
+
+    public List<LocalDate> findDefaultPartitionDaysBefore(LocalDate to) {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT CAST(timestamp AS date) AS day FROM " + DEFAULT_PARTITION +
+                " WHERE timestamp < ? ORDER BY day",
+                LocalDate.class, Timestamp.valueOf(to.atStartOfDay()));
+    }
+
+    /**
+     * Creates the partition for {@code day}. Rows already sitting in the default partition for
+     * that day are moved into the new table before it is attached, since Postgres refuses to
+     * add a partition whose range the default partition still holds rows for.
+     */
+    public void createPartition(LocalDate day) {
+        String name = partitionName(day);
+        String from = "'" + day + "'";
+        String to = "'" + day.plusDays(1) + "'";
+        if (!hasDefaultRows(day)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + PARENT +
+                                 " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+            return;
+        }
+        jdbcTemplate.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN SHARE ROW EXCLUSIVE MODE");
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + PARENT + " INCLUDING DEFAULTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                            " WHERE timestamp >= ? AND timestamp < ? RETURNING id, app_id, uri_id, ip, timestamp) " +
+                            "INSERT INTO " + name + " (id, app_id, uri_id, ip, timestamp) SELECT * FROM moved",
+                Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " ATTACH PARTITION " + name +
+                             " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+    }
+
+    public void dropPartition(LocalDate day) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(day));
+    }
+
+    public void detachPartition(LocalDate day) {
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + partitionName(day));
+    }
+
+    public int deleteDefaultPartitionRowsBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp < ?",
+                Timestamp.valueOf(cutoff));
+    }
+
+    private boolean hasDefaultRows(LocalDate day) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, DEFAULT_PARTITION);
+        if (!Boolean.TRUE.equals(exists)) {
+            return false;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE timestamp >= ? AND timestamp < ?)",
+                Boolean.class,
+                Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay())));
+    }
+
+    private List<String> findChildTables() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = CAST(? AS regclass)", String.class, PARENT);
+    }
+
+    private static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + PARTITION_SUFFIX.format(day);
+    }
+
+    private static LocalDate parseDay(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partitionName.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,476 @@
+package ru.practicum.stats.repository;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.stats.model.RollupGranularity;
+import ru.practicum.stats.model.RollupPlan;
+import ru.practicum.stats.model.TimeRange;
+import ru.practicum.stats.sketch.HyperLogLog;
+import ru.practicum.stats.wire.HitBatch;
+import ru.practicum.stats.wire.IpLiterals;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Hit counts per app, uri and minute, hour or day. Rows are keyed and grouped on dictionary ids;
+ * app and uri names are only joined in for the rows a query returns.
+ */
+@Repository
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RollupRepository {
+    private static final int BATCH_SIZE = 1000;
+    private static final Comparator<BucketKey> BUCKET_ORDER = Comparator
+            .comparingInt(BucketKey::uriId)
+            .thenComparingInt(BucketKey::appId)
+            .thenComparing(BucketKey::bucketStart);
+
+    private static final String JOIN_NAMES =
+            " JOIN hit_apps a ON a.id = r.app_id JOIN hit_uris u ON u.id = r.uri_id";
+
+    NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Converts rollup tables left by an older version, which were keyed on app and uri names,
+     * to dictionary ids in place. Rows are rewritten once, so the tables take up to twice their
+     * size until vacuumed.
+     */
+    public void convertLegacyTables() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            String table = granularity.getTable();
+            if (!Boolean.TRUE.equals(jdbc.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_attribute WHERE attrelid = to_regclass(?) " +
+                    "AND attname = 'uri' AND NOT attisdropped)", Boolean.class, table))) {
+                continue;
+            }
+            jdbc.execute("INSERT INTO hit_apps (name) SELECT DISTINCT app FROM " + table +
+                         " ON CONFLICT (name) DO NOTHING");
+            jdbc.execute("INSERT INTO hit_uris (uri) SELECT DISTINCT uri FROM " + table +
+                         " ON CONFLICT (uri) DO NOTHING");
+            jdbc.execute("ALTER TABLE " + table + " ADD COLUMN uri_id INT, ADD COLUMN app_id INT");
+            jdbc.execute("UPDATE " + table + " r SET uri_id = u.id, app_id = a.id " +
+                         "FROM hit_uris u, hit_apps a WHERE u.uri = r.uri AND a.name = r.app");
+            jdbc.execute("ALTER TABLE " + table +
+                         " DROP CONSTRAINT " + table + "_pkey, DROP COLUMN uri, DROP COLUMN app," +
+                         " ALTER COLUMN uri_id SET NOT NULL, ALTER COLUMN app_id SET NOT NULL," +
+                         " ADD PRIMARY KEY (uri_id, app_id, bucket_start)");
+        }
+    }
+
+    /**
+     * Fills rollup tables that are still empty from the raw hits. Sketched tables get a NULL
+     * sketch, which the backfill job then builds.
+     */
+    public void rebuildIfEmpty() {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            String table = granularity.getTable();
+            String bucket = "date_trunc('" + granularity.name().toLowerCase() + "', timestamp)";
+            jdbcTemplate.getJdbcTemplate().execute(
+                    "INSERT INTO " + table + " (uri_id, app_id, bucket_start, hits" +
+                    (granularity.isSketched() ? ", ip_sketch" : "") + ") " +
+                    "SELECT uri_id, app_id, " + bucket + ", COUNT(*)" +
+                    (granularity.isSketched() ? ", CAST(NULL AS bytea)" : "") + " " +
+                    "FROM endpoint_hits " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM " + table + ") " +
+                    "GROUP BY uri_id, app_id, " + bucket);
+        }
+    }
+
+    /**
+     * Adds the batch to every rollup. {@code appIds} and {@code uriIds} must hold the dictionary
+     * ids of all apps and uris of the batch.
+     */
+    public void increment(HitBatch hits, Map<String, Integer> appIds, Map<String, Integer> uriIds) {
+        int[] appIdByIndex = ids(hits.apps(), appIds);
+        int[] uriIdByIndex = ids(hits.uris(), uriIds);
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            // sorted so that concurrent upserts lock rows in the same order
+            Map<BucketKey, Long> counts = new TreeMap<>(BUCKET_ORDER);
+            for (int i = 0; i < hits.size(); i++) {
+                counts.merge(bucketKey(hits, i, granularity, appIdByIndex, uriIdByIndex), 1L, Long::sum);
+            }
+            String sql = "INSERT INTO " + granularity.getTable() + " (uri_id, app_id, bucket_start, hits) " +
+                         "VALUES (?, ?, ?, ?) " +
+                         "ON CONFLICT (uri_id, app_id, bucket_start) " +
+                         "DO UPDATE SET hits = " + granularity.getTable() + ".hits + EXCLUDED.hits";
+            jdbcTemplate.getJdbcTemplate().batchUpdate(sql, counts.entrySet(), BATCH_SIZE, (ps, entry) -> {
+                ps.setInt(1, entry.getKey().uriId());
+                ps.setInt(2, entry.getKey().appId());
+                ps.setTimestamp(3, Timestamp.valueOf(entry.getKey().bucketStart()));
+                ps.setLong(4, entry.getValue());
+            });
+            if (granularity.isSketched()) {
+                mergeSketches(granularity, hits, appIdByIndex, uriIdByIndex);
+            }
+        }
+    }
+
+    public List<ViewStats> getStats(RollupPlan plan, IdFilter idFilter) {
+        List<ViewStats> result = new ArrayList<>();
+        streamStats(plan, idFilter, result::add);
+        return result;
+    }
+
+    /**
+     * Passes the rows of {@link #getStats} to {@code consumer} as they are read. Inside a
+     * transaction they come from a cursor ({@code spring.jdbc.template.fetch-size}).
+     */
+    public void streamStats(RollupPlan plan, IdFilter idFilter, Consumer<ViewStats> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String filter = filter(params, idFilter);
+
+        List<String> parts = new ArrayList<>();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            List<TimeRange> ranges = plan.getBuckets(granularity);
+            for (int i = 0; i < ranges.size(); i++) {
+                String from = bind(params, granularity.name() + "_from_" + i, ranges.get(i).from());
+                String to = bind(params, granularity.name() + "_to_" + i, ranges.get(i).to());
+                parts.add("SELECT app_id, uri_id, hits FROM " + granularity.getTable() +
+                          " WHERE bucket_start >= " + from + " AND bucket_start < " + to + filter);
+            }
+        }
+        List<TimeRange> raw = plan.getRaw();
+        for (int i = 0; i < raw.size(); i++) {
+            String from = bind(params, "RAW_from_" + i, raw.get(i).from());
+            String to = bind(params, "RAW_to_" + i, raw.get(i).to());
+            parts.add("SELECT app_id, uri_id, COUNT(*) AS hits FROM endpoint_hits" +
+                      " WHERE timestamp >= " + from + " AND timestamp < " + to + filter +
+                      " GROUP BY app_id, uri_id");
+        }
+        if (parts.isEmpty()) {
+            return;
+        }
+
+        String sql = "SELECT a.name AS app, u.uri AS uri, r.hits FROM (" +
+                     "SELECT app_id, uri_id, SUM(hits) AS hits FROM (" + String.join(" UNION ALL ", parts) +
+                     ") t GROUP BY app_id, uri_id) r" + JOIN_NAMES + " ORDER BY r.hits DESC";
+        jdbcTemplate.query(sql, params, (RowCallbackHandler) rs ->
+                consumer.accept(new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits"))));
+    }
+
+    /**
+     * Passes the hits per {@code granularity} bucket in {@code range} to {@code consumer}, read from
+     * that granularity's rollup table. {@code range} must be aligned to the granularity.
+     */
+    public void streamBucketCounts(RollupGranularity granularity, TimeRange range, IdFilter idFilter,
+                                   Consumer<BucketCount> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String filter = filter(params, idFilter);
+        String from = bind(params, "from", range.from());
+        String to = bind(params, "to", range.to());
+        jdbcTemplate.query("SELECT a.name AS app, u.uri AS uri, r.bucket_start, r.hits FROM (" +
+                           "SELECT app_id, uri_id, bucket_start, hits FROM " + granularity.getTable() +
+                           " WHERE bucket_start >= " + from + " AND bucket_start < " + to + filter + ") r" +
+                           JOIN_NAMES, params,
+                (RowCallbackHandler) rs -> consumer.accept(toBucketCount(rs)));
+    }
+
+    /**
+     * Like {@link #streamBucketCounts} but grouped from the raw hits, counting distinct IPs if
+     * {@code unique} is set.
+     */
+    public void streamRawBucketCounts(RollupGranularity granularity, TimeRange range, IdFilter idFilter,
+                                      boolean unique, Consumer<BucketCount> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String filter = filter(params, idFilter);
+        String from = bind(params, "from", range.from());
+        String to = bind(params, "to", range.to());
+        String bucket = "date_trunc('" + granularity.name().toLowerCase() + "', timestamp)";
+        jdbcTemplate.query("SELECT a.name AS app, u.uri AS uri, r.bucket_start, r.hits FROM (" +
+                           "SELECT app_id, uri_id, " + bucket + " AS bucket_start, " +
+                           (unique ? "COUNT(DISTINCT ip)" : "COUNT(*)") + " AS hits FROM endpoint_hits" +
+                           " WHERE timestamp >= " + from + " AND timestamp < " + to + filter +
+                           " GROUP BY app_id, uri_id, " + bucket + ") r" + JOIN_NAMES, params,
+                (RowCallbackHandler) rs -> consumer.accept(toBucketCount(rs)));
+    }
+
+    /**
+     * Answers a unique-IP query from the hour/day sketches of {@code plan} plus the distinct IPs
+     * of its raw ranges. Returns empty if a bucket in range has not been sketched yet.
+     */
+    public Optional<List<ViewStats>> getUniqueStats(RollupPlan plan, IdFilter idFilter) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String filter = filter(params, idFilter);
+
+        List<String> sketchParts = new ArrayList<>();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            List<TimeRange> ranges = plan.getBuckets(granularity);
+            for (int i = 0; i < ranges.size(); i++) {
+                String from = bind(params, granularity.name() + "_from_" + i, ranges.get(i).from());
+                String to = bind(params, granularity.name() + "_to_" + i, ranges.get(i).to());
+                sketchParts.add("SELECT app_id, uri_id, ip_sketch FROM " + granularity.getTable() +
+                                " WHERE bucket_start >= " + from + " AND bucket_start < " + to + filter);
+            }
+        }
+        List<String> rawParts = new ArrayList<>();
+        List<TimeRange> raw = plan.getRaw();
+        for (int i = 0; i < raw.size(); i++) {
+            String from = bind(params, "RAW_from_" + i, raw.get(i).from());
+            String to = bind(params, "RAW_to_" + i, raw.get(i).to());
+            rawParts.add("SELECT DISTINCT app_id, uri_id, host(ip) AS ip FROM endpoint_hits" +
+                         " WHERE timestamp >= " + from + " AND timestamp < " + to + filter);
+        }
+
+        Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+        if (!sketchParts.isEmpty()) {
+            boolean[] complete = {true};
+            jdbcTemplate.query(String.join(" UNION ALL ", sketchParts), params, rs -> {
+                byte[] bytes = rs.getBytes("ip_sketch");
+                if (bytes == null) {
+                    complete[0] = false;
+                    return;
+                }
+                sketches.computeIfAbsent(new AppUri(rs.getInt("app_id"), rs.getInt("uri_id")), k -> new HyperLogLog())
+                        .merge(HyperLogLog.fromBytes(bytes));
+            });
+            if (!complete[0]) {
+                return Optional.empty();
+            }
+        }
+        if (!rawParts.isEmpty()) {
+            jdbcTemplate.query(String.join(" UNION ALL ", rawParts), params, rs -> {
+                sketches.computeIfAbsent(new AppUri(rs.getInt("app_id"), rs.getInt("uri_id")), k -> new HyperLogLog())
+                        .add(sketchedIp(rs));
+            });
+        }
+
+        Map<AppUri, Long> estimates = new HashMap<>();
+        sketches.forEach((key, hll) -> {
+            long estimate = hll.estimate();
+            if (estimate > 0) {
+                estimates.put(key, estimate);
+            }
+        });
+        if (estimates.isEmpty()) {
+            return Optional.of(List.of());
+        }
+        Map<Integer, String> appNames = findNames("hit_apps", "name",
+                estimates.keySet().stream().map(AppUri::appId).toList());
+        Map<Integer, String> uriNames = findNames("hit_uris", "uri",
+                estimates.keySet().stream().map(AppUri::uriId).toList());
+        List<ViewStats> result = new ArrayList<>(estimates.size());
+        estimates.forEach((key, estimate) ->
+                result.add(new ViewStats(appNames.get(key.appId()), uriNames.get(key.uriId()), estimate)));
+        result.sort((a, b) -> Long.compare(b.getHits(), a.getHits()));
+        return Optional.of(result);
+    }
+
+    /**
+     * All-time hit counts per app and uri, summed from the day rollups.
+     */
+    public List<CounterRow> findTotals() {
+        return jdbcTemplate.getJdbcTemplate().query(
+                "SELECT r.app_id, r.uri_id, a.name AS app, u.uri, NULL AS bucket_start, r.hits FROM (" +
+                "SELECT app_id, uri_id, SUM(hits) AS hits FROM " + RollupGranularity.DAY.getTable() +
+                " GROUP BY app_id, uri_id) r" + JOIN_NAMES,
+                (rs, rowNum) -> toCounterRow(rs));
+    }
+
+    public List<CounterRow> findMinuteCountsSince(LocalDateTime from) {
+        return jdbcTemplate.getJdbcTemplate().query(
+                "SELECT r.app_id, r.uri_id, a.name AS app, u.uri, r.bucket_start, r.hits " +
+                "FROM " + RollupGranularity.MINUTE.getTable() + " r" + JOIN_NAMES + " " +
+                "WHERE r.bucket_start >= ?",
+                (rs, rowNum) -> toCounterRow(rs),
+                Timestamp.valueOf(from));
+    }
+
+    /**
+     * The first and last minute that has hits, or empty if there are none.
+     */
+    public Optional<TimeRange> findMinuteBucketRange() {
+        return jdbcTemplate.getJdbcTemplate().query(
+                "SELECT MIN(bucket_start) AS first_bucket, MAX(bucket_start) AS last_bucket FROM " +
+                RollupGranularity.MINUTE.getTable(),
+                rs -> {
+                    rs.next();
+                    Timestamp first = rs.getTimestamp("first_bucket");
+                    Timestamp last = rs.getTimestamp("last_bucket");
+                    return first == null
+                            ? Optional.empty()
+                            : Optional.of(new TimeRange(first.toLocalDateTime(), last.toLocalDateTime()));
+                });
+    }
+
+    public List<BucketRef> findUnsketchedBuckets(RollupGranularity granularity, int limit) {
+        return jdbcTemplate.getJdbcTemplate().query(
+                "SELECT uri_id, app_id, bucket_start FROM " + granularity.getTable() +
+                " WHERE ip_sketch IS NULL LIMIT ?",
+                (rs, rowNum) -> new BucketRef(rs.getInt("uri_id"), rs.getInt("app_id"),
+                        rs.getTimestamp("bucket_start").toLocalDateTime()),
+                limit);
+    }
+
+    /**
+     * Builds the sketch of one bucket from raw hits. The rollup row is locked first so that
+     * ingest transactions either committed before the raw rows are read or merge into the result.
+     */
+    public void backfillSketch(RollupGranularity granularity, BucketRef bucket) {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        Timestamp bucketStart = Timestamp.valueOf(bucket.bucketStart());
+        List<byte[]> current = jdbc.query(
+                "SELECT ip_sketch FROM " + granularity.getTable() +
+                " WHERE uri_id = ? AND app_id = ? AND bucket_start = ? FOR UPDATE",
+                (rs, rowNum) -> rs.getBytes("ip_sketch"),
+                bucket.uriId(), bucket.appId(), bucketStart);
+        if (current.isEmpty() || current.get(0) != null) {
+            return;
+        }
+        HyperLogLog hll = new HyperLogLog();
+        jdbc.query("SELECT DISTINCT host(ip) AS ip FROM endpoint_hits " +
+                   "WHERE uri_id = ? AND app_id = ? AND timestamp >= ? AND timestamp < ?",
+                (RowCallbackHandler) rs -> hll.add(sketchedIp(rs)),
+                bucket.uriId(), bucket.appId(), bucketStart,
+                Timestamp.valueOf(bucket.bucketStart().plus(1, granularity.getUnit())));
+        jdbc.update("UPDATE " + granularity.getTable() + " SET ip_sketch = ? " +
+                    "WHERE uri_id = ? AND app_id = ? AND bucket_start = ?",
+                hll.toBytes(), bucket.uriId(), bucket.appId(), bucketStart);
+    }
+
+    /**
+     * The ip of a row in the form ingest adds to sketches: Postgres compresses IPv6 addresses,
+     * the wire format does not, and the two strings hash differently.
+     */
+    private static String sketchedIp(ResultSet rs) throws SQLException {
+        return IpLiterals.normalize(rs.getString("ip"));
+    }
+
+    private void mergeSketches(RollupGranularity granularity, HitBatch hits, int[] appIdByIndex,
+                               int[] uriIdByIndex) {
+        Map<BucketKey, HyperLogLog> added = new TreeMap<>(BUCKET_ORDER);
+        for (int i = 0; i < hits.size(); i++) {
+            added.computeIfAbsent(bucketKey(hits, i, granularity, appIdByIndex, uriIdByIndex),
+                    k -> new HyperLogLog()).add(hits.ip(i));
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("uriIds", added.keySet().stream().map(BucketKey::uriId).toArray(Integer[]::new))
+                .addValue("appIds", added.keySet().stream().map(BucketKey::appId).toArray(Integer[]::new))
+                .addValue("buckets", added.keySet().stream()
+                        .map(k -> Timestamp.valueOf(k.bucketStart()).toString())
+                        .toArray(String[]::new));
+        // rows are already locked by the hit counter upsert of this transaction
+        Map<BucketKey, byte[]> existing = new HashMap<>();
+        jdbcTemplate.query("SELECT uri_id, app_id, bucket_start, ip_sketch FROM " + granularity.getTable() +
+                           " WHERE (uri_id, app_id, bucket_start) IN (SELECT * FROM unnest(" +
+                           "CAST(:uriIds AS int[]), CAST(:appIds AS int[]), CAST(:buckets AS timestamp[])))",
+                params, rs -> {
+                    existing.put(new BucketKey(rs.getInt("uri_id"), rs.getInt("app_id"),
+                            rs.getTimestamp("bucket_start").toLocalDateTime()), rs.getBytes("ip_sketch"));
+                });
+
+        List<Map.Entry<BucketKey, byte[]>> updates = new ArrayList<>();
+        for (Map.Entry<BucketKey, HyperLogLog> entry : added.entrySet()) {
+            byte[] stored = existing.get(entry.getKey());
+            if (stored == null) {
+                // not sketched yet: left for the backfill job, which rebuilds it from raw hits
+                continue;
+            }
+            HyperLogLog merged = HyperLogLog.fromBytes(stored);
+            merged.merge(entry.getValue());
+            updates.add(Map.entry(entry.getKey(), merged.toBytes()));
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(
+                "UPDATE " + granularity.getTable() + " SET ip_sketch = ? " +
+                "WHERE uri_id = ? AND app_id = ? AND bucket_start = ?",
+                updates, BATCH_SIZE, (ps, entry) -> {
+                    ps.setBytes(1, entry.getValue());
+                    ps.setInt(2, entry.getKey().uriId());
+                    ps.setInt(3, entry.getKey().appId());
+                    ps.setTimestamp(4, Timestamp.valueOf(entry.getKey().bucketStart()));
+                });
+    }
+
+    private Map<Integer, String> findNames(String table, String column, Collection<Integer> ids) {
+        Map<Integer, String> names = new HashMap<>();
+        jdbcTemplate.query("SELECT id, " + column + " FROM " + table + " WHERE id = ANY(CAST(:ids AS int[]))",
+                new MapSqlParameterSource("ids", ids.stream().distinct().toArray(Integer[]::new)), rs -> {
+                    names.put(rs.getInt("id"), rs.getString(column));
+                });
+        return names;
+    }
+
+    private static String filter(MapSqlParameterSource params, IdFilter idFilter) {
+        String filter = "";
+        if (idFilter.uriIds() != null) {
+            filter += " AND uri_id = ANY(CAST(:uriIds AS int[]))";
+            params.addValue("uriIds", idFilter.uriIds().toArray(new Integer[0]));
+        }
+        if (idFilter.appId() != null) {
+            filter += " AND app_id = :appId";
+            params.addValue("appId", idFilter.appId());
+        }
+        return filter;
+    }
+
+    private static BucketKey bucketKey(HitBatch hits, int hit, RollupGranularity granularity, int[] appIdByIndex,
+                                       int[] uriIdByIndex) {
+        return new BucketKey(uriIdByIndex[hits.uriIndex(hit)], appIdByIndex[hits.appIndex(hit)],
+                hits.timestamp(hit).truncatedTo(granularity.getUnit()));
+    }
+
+    private static int[] ids(List<String> names, Map<String, Integer> idsByName) {
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idsByName.get(names.get(i));
+        }
+        return ids;
+    }
+
+    private static CounterRow toCounterRow(ResultSet rs) throws SQLException {
+        Timestamp bucketStart = rs.getTimestamp("bucket_start");
+        return new CounterRow(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getString("app"), rs.getString("uri"),
+                bucketStart == null ? null : bucketStart.toLocalDateTime(), rs.getLong("hits"));
+    }
+
+    private static BucketCount toBucketCount(ResultSet rs) throws SQLException {
+        return new BucketCount(rs.getString("app"), rs.getString("uri"),
+                rs.getTimestamp("bucket_start").toLocalDateTime(), rs.getLong("hits"));
+    }
+
+    private static String bind(MapSqlParameterSource params, String name, LocalDateTime value) {
+        params.addValue(name, Timestamp.valueOf(value));
+        return ":" + name;
+    }
+
+    /**
+     * Dictionary ids a query is restricted to; null means any uri or any app.
+     */
+    public record IdFilter(Collection<Integer> uriIds, Integer appId) {
+    }
+
+    public record CounterRow(int appId, int uriId, String app, String uri, LocalDateTime bucketStart, long hits) {
+    }
+
+    public record BucketCount(String app, String uri, LocalDateTime bucketStart, long hits) {
+    }
+
+    public record BucketRef(int uriId, int appId, LocalDateTime bucketStart) {
+    }
+
+    private record BucketKey(int uriId, int appId, LocalDateTime bucketStart) {
+    }
+
+    private record AppUri(int appId, int uriId) {
+    }
+}
\ No newline at end of file
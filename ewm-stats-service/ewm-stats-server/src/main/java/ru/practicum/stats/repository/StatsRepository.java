@@ -1,28 +1,88 @@
 package ru.practicum.stats.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import ru.practicum.stats.dto.ViewStats;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.stats.model.EndpointHitEntity;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface StatsRepository extends JpaRepository<EndpointHitEntity, Long> {
+    String STREAM_FETCH_SIZE = "1000";
 
-    @Query("SELECT new ru.practicum.stats.dto.ViewStats(e.app, e.uri, COUNT(e.id)) " +
-           "FROM EndpointHitEntity e " +
-           "WHERE e.timestamp BETWEEN :start AND :end " +
-           "AND (:uris IS NULL OR e.uri IN :uris) " +
-           "GROUP BY e.app, e.uri " +
-           "ORDER BY COUNT(e.id) DESC")
-    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris);
-
-    @Query("SELECT new ru.practicum.stats.dto.ViewStats(e.app, e.uri, COUNT(DISTINCT e.ip)) " +
-           "FROM EndpointHitEntity e " +
-           "WHERE e.timestamp BETWEEN :start AND :end " +
-           "AND (:uris IS NULL OR e.uri IN :uris) " +
-           "GROUP BY e.app, e.uri " +
-           "ORDER BY COUNT(DISTINCT e.ip) DESC")
-    List<ViewStats> getUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris);
+    String STATS_SQL = "SELECT a.name AS app, u.uri AS uri, s.hits AS hits " +
+                       "FROM (SELECT e.app_id, e.uri_id, COUNT(*) AS hits " +
+                       "FROM endpoint_hits e " +
+                       "WHERE e.timestamp BETWEEN :start AND :end " +
+                       "AND (:allUris = true OR e.uri_id = ANY(ARRAY(" +
+                       "SELECT id FROM hit_uris WHERE uri = ANY(CAST(:uris AS text[]))))) " +
+                       "AND (:allApps = true OR e.app_id = (SELECT id FROM hit_apps WHERE name = :app)) " +
+                       "GROUP BY e.app_id, e.uri_id) s " +
+                       "JOIN hit_apps a ON a.id = s.app_id " +
+                       "JOIN hit_uris u ON u.id = s.uri_id " +
+                       "ORDER BY hits DESC";
+
+    String UNIQUE_STATS_SQL = "SELECT a.name AS app, u.uri AS uri, s.hits AS hits " +
+                              "FROM (SELECT e.app_id, e.uri_id, COUNT(DISTINCT e.ip) AS hits " +
+                              "FROM endpoint_hits e " +
+                              "WHERE e.timestamp BETWEEN :start AND :end " +
+                              "AND (:allUris = true OR e.uri_id = ANY(ARRAY(" +
+                              "SELECT id FROM hit_uris WHERE uri = ANY(CAST(:uris AS text[]))))) " +
+                              "AND (:allApps = true OR e.app_id = (SELECT id FROM hit_apps WHERE name = :app)) " +
+                              "GROUP BY e.app_id, e.uri_id) s " +
+                              "JOIN hit_apps a ON a.id = s.app_id " +
+                              "JOIN hit_uris u ON u.id = s.uri_id " +
+                              "ORDER BY hits DESC";
+
+    @Query(value = STATS_SQL, nativeQuery = true)
+    List<ViewStatsProjection> queryStats(LocalDateTime start, LocalDateTime end,
+                                         boolean allUris, String[] uris,
+                                         boolean allApps, String app);
+
+    @Query(value = UNIQUE_STATS_SQL, nativeQuery = true)
+    List<ViewStatsProjection> queryUniqueStats(LocalDateTime start, LocalDateTime end,
+                                               boolean allUris, String[] uris,
+                                               boolean allApps, String app);
+
+    /**
+     * Distinct IPs per app over all matching uris together, reported under the uri {@code label}.
+     */
+    @Query(value = "SELECT a.name AS app, CAST(:label AS text) AS uri, COUNT(DISTINCT e.ip) AS hits " +
+                   "FROM endpoint_hits e " +
+                   "JOIN hit_apps a ON a.id = e.app_id " +
+                   "WHERE e.timestamp BETWEEN :start AND :end " +
+                   "AND (:allUris = true OR e.uri_id = ANY(ARRAY(" +
+                   "SELECT id FROM hit_uris WHERE uri = ANY(CAST(:uris AS text[]))))) " +
+                   "AND (:allApps = true OR e.app_id = (SELECT id FROM hit_apps WHERE name = :app)) " +
+                   "GROUP BY a.name " +
+                   "ORDER BY hits DESC", nativeQuery = true)
+    List<ViewStatsProjection> queryUniqueTotal(String label, LocalDateTime start, LocalDateTime end,
+                                               boolean allUris, String[] uris,
+                                               boolean allApps, String app);
+
+    /**
+     * Same as {@link #queryStats} but read through a cursor; must be consumed and closed
+     * inside a transaction.
+     */
+    @Query(value = STATS_SQL, nativeQuery = true)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ViewStatsProjection> streamStats(LocalDateTime start, LocalDateTime end,
+                                            boolean allUris, String[] uris,
+                                            boolean allApps, String app);
+
+    @Query(value = UNIQUE_STATS_SQL, nativeQuery = true)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ViewStatsProjection> streamUniqueStats(LocalDateTime start, LocalDateTime end,
+                                                  boolean allUris, String[] uris,
+                                                  boolean allApps, String app);
 }
\ No newline at end of file
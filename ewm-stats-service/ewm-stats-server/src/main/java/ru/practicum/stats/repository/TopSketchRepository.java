@@ -0,0 +1,56 @@
+package ru.practicum.stats.repository;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.RollupGranularity;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TopSketchRepository {
+    NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void saveAll(List<SketchSnapshot> snapshots) {
+        MapSqlParameterSource[] params = snapshots.stream()
+                .map(s -> new MapSqlParameterSource()
+                        .addValue("app", s.app())
+                        .addValue("granularity", s.granularity().name())
+                        .addValue("bucketStart", Timestamp.valueOf(s.bucketStart()))
+                        .addValue("sketch", s.sketch()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("INSERT INTO hit_top_sketches (app, granularity, bucket_start, sketch) " +
+                                 "VALUES (:app, :granularity, :bucketStart, :sketch) " +
+                                 "ON CONFLICT (app, granularity, bucket_start) " +
+                                 "DO UPDATE SET sketch = EXCLUDED.sketch", params);
+    }
+
+    public List<SketchSnapshot> findSince(RollupGranularity granularity, LocalDateTime from) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("granularity", granularity.name())
+                .addValue("from", Timestamp.valueOf(from));
+        return jdbcTemplate.query("SELECT app, bucket_start, sketch FROM hit_top_sketches " +
+                                  "WHERE granularity = :granularity AND bucket_start >= :from", params,
+                (rs, rowNum) -> new SketchSnapshot(rs.getString("app"), granularity,
+                        rs.getTimestamp("bucket_start").toLocalDateTime(), rs.getBytes("sketch")));
+    }
+
+    public int deleteBefore(RollupGranularity granularity, LocalDateTime before) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("granularity", granularity.name())
+                .addValue("before", Timestamp.valueOf(before));
+        return jdbcTemplate.update("DELETE FROM hit_top_sketches " +
+                                   "WHERE granularity = :granularity AND bucket_start < :before", params);
+    }
+
+    public record SketchSnapshot(String app, RollupGranularity granularity, LocalDateTime bucketStart,
+                                 byte[] sketch) {
+    }
+}
\ No newline at end of file
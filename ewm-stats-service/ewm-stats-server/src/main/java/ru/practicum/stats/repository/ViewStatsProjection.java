@@ -0,0 +1,9 @@
+package ru.practicum.stats.repository;
+
+public interface ViewStatsProjection {
+    String getApp();
+
+    String getUri();
+
+    Long getHits();
+}
\ No newline at end of file
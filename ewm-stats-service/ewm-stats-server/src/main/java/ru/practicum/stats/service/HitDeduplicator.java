@@ -0,0 +1,177 @@
+package ru.practicum.stats.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.repository.HitIdRepository;
+import ru.practicum.stats.sketch.BloomFilter;
+import ru.practicum.stats.wire.HitBatch;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops hits whose client-supplied id was ingested before; hits without an id are always kept.
+ * Ids committed by this instance go into two Bloom filters that rotate every {@code window}.
+ * Ids the filters may have seen, such as a client retry or a spool replay within one to two
+ * windows, are looked up in {@code hit_ids} with one read before the ingest transaction, so a
+ * batch of repeats never opens it; a false positive, at about {@code false-positive-rate} while
+ * a window stays within {@code expected-ids}, only costs that lookup. Every id left is claimed in
+ * {@code hit_ids} within the ingest transaction; its primary key is the authoritative check for
+ * ids seen by other instances, before a restart or before the filter window. Claims are kept
+ * for {@code retention}, so a hit replayed after that is counted again.
+ */
+@Component
+@Slf4j
+public class HitDeduplicator {
+    private final HitIdRepository hitIdRepository;
+    private final boolean enabled;
+    private final long expectedIds;
+    private final double falsePositiveRate;
+    private final Duration retention;
+    private final LongAdder droppedByFilter = new LongAdder();
+    private final LongAdder droppedByDatabase = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private volatile Filters filters;
+
+    public HitDeduplicator(HitIdRepository hitIdRepository,
+                           @Value("${stats.dedup.enabled:true}") boolean enabled,
+                           @Value("${stats.dedup.expected-ids:1000000}") long expectedIds,
+                           @Value("${stats.dedup.false-positive-rate:0.000001}") double falsePositiveRate,
+                           @Value("${stats.dedup.retention:7d}") Duration retention,
+                           MeterRegistry meterRegistry) {
+        this.hitIdRepository = hitIdRepository;
+        this.enabled = enabled;
+        this.expectedIds = expectedIds;
+        this.falsePositiveRate = falsePositiveRate;
+        this.retention = retention;
+        this.filters = enabled ? new Filters(new BloomFilter(expectedIds, falsePositiveRate), null) : null;
+        FunctionCounter.builder("stats.server.dedup.dropped", droppedByFilter, LongAdder::sum)
+                .tag("by", "filter")
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.server.dedup.dropped", droppedByDatabase, LongAdder::sum)
+                .tag("by", "database")
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.server.dedup.filter.false.positives", falsePositives, LongAdder::sum)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Removes repeats of an id within the batch and hits whose id the filters may have seen and
+     * {@code hit_ids} confirms; ids the filters have not seen are left for {@link #claim}.
+     */
+    public HitBatch dropSeen(HitBatch batch) {
+        if (!enabled || !batch.hasHitIds()) {
+            return batch;
+        }
+        Filters current = filters;
+        BitSet keep = new BitSet(batch.size());
+        Set<String> inBatch = new HashSet<>();
+        List<String> suspects = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            String hitId = batch.hitId(i);
+            if (hitId == null) {
+                keep.set(i);
+            } else if (!inBatch.add(hitId)) {
+                droppedByFilter.increment();
+            } else {
+                keep.set(i);
+                if (current.mightContain(hitId)) {
+                    suspects.add(hitId);
+                }
+            }
+        }
+        if (!suspects.isEmpty()) {
+            Set<String> claimed = hitIdRepository.findClaimed(suspects);
+            falsePositives.add(suspects.size() - claimed.size());
+            for (int i = keep.nextSetBit(0); i >= 0; i = keep.nextSetBit(i + 1)) {
+                if (batch.hitId(i) != null && claimed.contains(batch.hitId(i))) {
+                    keep.clear(i);
+                    droppedByFilter.increment();
+                }
+            }
+        }
+        return keep.cardinality() == batch.size() ? batch : batch.select(keep);
+    }
+
+    /**
+     * Claims the ids of the batch and returns the hits whose ids had not been claimed before.
+     * Must run in the transaction that stores the hits, so a rollback releases the claims.
+     */
+    public HitBatch claim(HitBatch batch) {
+        if (!enabled || !batch.hasHitIds()) {
+            return batch;
+        }
+        List<String> hitIds = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.hitId(i) != null) {
+                hitIds.add(batch.hitId(i));
+            }
+        }
+        Set<String> claimed = hitIdRepository.claim(hitIds, LocalDateTime.now());
+        if (claimed.size() == hitIds.size()) {
+            return batch;
+        }
+        BitSet keep = new BitSet(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            String hitId = batch.hitId(i);
+            if (hitId == null || claimed.contains(hitId)) {
+                keep.set(i);
+            }
+        }
+        droppedByDatabase.add(hitIds.size() - claimed.size());
+        return batch.select(keep);
+    }
+
+    /**
+     * Adds the ids of a committed batch to the current filter.
+     */
+    public void markSeen(HitBatch batch) {
+        if (!enabled || !batch.hasHitIds()) {
+            return;
+        }
+        BloomFilter current = filters.current();
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.hitId(i) != null) {
+                current.put(batch.hitId(i));
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${stats.dedup.window:PT10M}", fixedDelayString = "${stats.dedup.window:PT10M}")
+    public void rotate() {
+        if (!enabled) {
+            return;
+        }
+        filters = new Filters(new BloomFilter(expectedIds, falsePositiveRate), filters.current());
+    }
+
+    @Scheduled(initialDelayString = "${stats.dedup.cleanup.interval:PT1H}",
+               fixedDelayString = "${stats.dedup.cleanup.interval:PT1H}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = hitIdRepository.deleteBefore(LocalDateTime.now().minus(retention));
+            log.debug("Deleted {} expired hit ids", deleted);
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete expired hit ids: {}", e.getMessage());
+        }
+    }
+
+    private record Filters(BloomFilter current, BloomFilter previous) {
+        private boolean mightContain(String hitId) {
+            return current.mightContain(hitId) || previous != null && previous.mightContain(hitId);
+        }
+    }
+}
\ No newline at end of file
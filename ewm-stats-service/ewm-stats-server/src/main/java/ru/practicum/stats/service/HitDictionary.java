@@ -0,0 +1,89 @@
+package ru.practicum.stats.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.repository.HitDictionaryRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Maps app names and URIs to their dictionary ids. Ids never change once assigned, so they are
+ * cached in process and ingest only goes to the database for names it has not seen yet. New
+ * names are inserted in their own transaction so that an id is only cached once it is committed;
+ * lookups that never create an entry run in the caller's transaction.
+ */
+@Component
+@Slf4j
+public class HitDictionary {
+    private final HitDictionaryRepository dictionaryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxCachedEntries;
+    private final Map<String, Integer> appIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> uriIds = new ConcurrentHashMap<>();
+
+    public HitDictionary(HitDictionaryRepository dictionaryRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${stats.dictionary.cache.max-size:100000}") int maxCachedEntries) {
+        this.dictionaryRepository = dictionaryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxCachedEntries = maxCachedEntries;
+    }
+
+    public Map<String, Integer> getAppIds(Collection<String> names) {
+        return resolve(appIds, names, missing -> transactionTemplate.execute(status ->
+                dictionaryRepository.getOrCreateAppIds(missing)));
+    }
+
+    public Map<String, Integer> getUriIds(Collection<String> uris) {
+        return resolve(uriIds, uris, missing -> transactionTemplate.execute(status ->
+                dictionaryRepository.getOrCreateUriIds(missing)));
+    }
+
+    /**
+     * Like {@link #getAppIds} but without creating entries; unknown names are left out.
+     */
+    public Map<String, Integer> findAppIds(Collection<String> names) {
+        return resolve(appIds, names, dictionaryRepository::findAppIds);
+    }
+
+    public Map<String, Integer> findUriIds(Collection<String> uris) {
+        return resolve(uriIds, uris, dictionaryRepository::findUriIds);
+    }
+
+    private Map<String, Integer> resolve(Map<String, Integer> cache, Collection<String> values,
+                                         Function<Collection<String>, Map<String, Integer>> loader) {
+        Map<String, Integer> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String value : values) {
+            Integer id = cache.get(value);
+            if (id != null) {
+                result.put(value, id);
+            } else {
+                missing.add(value);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<String, Integer> loaded = loader.apply(missing);
+        result.putAll(loaded);
+        if (cache.size() < maxCachedEntries) {
+            cache.putAll(loaded);
+        } else {
+            log.debug("Dictionary cache is full, {} ids not cached", loaded.size());
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,125 @@
+package ru.practicum.stats.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.model.HitRetentionAction;
+import ru.practicum.stats.repository.HitPartitionRepository;
+import ru.practicum.stats.repository.RollupRepository;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps {@code endpoint_hits} partitioned by day. On startup it creates the table, converting
+ * it and the rollups if an older version left them, and fills empty rollups from it. Afterwards it creates
+ * partitions ahead of time, moves rows that fell into the default partition into their own
+ * day and drops or detaches days older than the retention period.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class HitPartitionManager {
+    HitPartitionRepository partitionRepository;
+    RollupRepository rollupRepository;
+    TransactionTemplate transactionTemplate;
+
+    @NonFinal
+    @Value("${stats.partition.premake-days:7}")
+    int premakeDays;
+
+    @NonFinal
+    @Value("${stats.partition.retention-days:0}")
+    int retentionDays;
+
+    @NonFinal
+    @Value("${stats.partition.retention-action:DROP}")
+    HitRetentionAction retentionAction;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate.executeWithoutResult(status -> {
+            partitionRepository.lockMaintenance();
+            if (partitionRepository.exists() && !partitionRepository.isCurrentLayout()) {
+                log.info("Converting endpoint_hits to the partitioned, dictionary encoded layout");
+                partitionRepository.renameToLegacy();
+            }
+            partitionRepository.createTable();
+            if (partitionRepository.legacyTableExists()) {
+                partitionRepository.copyLegacyTable();
+            }
+            partitionRepository.createDefaultPartitionAndIndexes();
+            rollupRepository.convertLegacyTables();
+            rollupRepository.rebuildIfEmpty();
+        });
+        maintain();
+    }
+
+    @Scheduled(initialDelayString = "${stats.partition.maintenance.interval:PT1H}",
+               fixedDelayString = "${stats.partition.maintenance.interval:PT1H}")
+    public void maintain() {
+        LocalDate today = LocalDate.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                partitionRepository.lockMaintenance();
+                createPartitions(today);
+            });
+            if (retentionDays > 0) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    partitionRepository.lockMaintenance();
+                    applyRetention(today.minusDays(retentionDays));
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to maintain endpoint_hits partitions: {}", e.getMessage());
+        }
+    }
+
+    private void createPartitions(LocalDate today) {
+        Set<LocalDate> existing = new HashSet<>(partitionRepository.findPartitionDays());
+        LocalDate horizon = today.plusDays(premakeDays + 1);
+        LocalDate oldestKept = retentionDays > 0 ? today.minusDays(retentionDays) : null;
+
+        // days that were written before their partition existed sit in the default partition
+        for (LocalDate day : partitionRepository.findDefaultPartitionDaysBefore(horizon)) {
+            if ((oldestKept == null || !day.isBefore(oldestKept)) && existing.add(day)) {
+                partitionRepository.createPartition(day);
+                log.info("Moved hits for {} out of the default partition", day);
+            }
+        }
+        for (LocalDate day = today; day.isBefore(horizon); day = day.plusDays(1)) {
+            if (existing.add(day)) {
+                partitionRepository.createPartition(day);
+                log.debug("Created endpoint_hits partition for {}", day);
+            }
+        }
+    }
+
+    private void applyRetention(LocalDate oldestKept) {
+        List<LocalDate> expired = partitionRepository.findPartitionDays().stream()
+                .filter(day -> day.isBefore(oldestKept))
+                .toList();
+        for (LocalDate day : expired) {
+            if (retentionAction == HitRetentionAction.DETACH) {
+                partitionRepository.detachPartition(day);
+            } else {
+                partitionRepository.dropPartition(day);
+            }
+        }
+        int deleted = partitionRepository.deleteDefaultPartitionRowsBefore(oldestKept.atStartOfDay());
+        if (!expired.isEmpty() || deleted > 0) {
+            log.info("Retention {}: {} endpoint_hits partitions before {}, {} rows removed from the default partition",
+                    retentionAction, expired.size(), oldestKept, deleted);
+        }
+    }
+}
\ No newline at end of file
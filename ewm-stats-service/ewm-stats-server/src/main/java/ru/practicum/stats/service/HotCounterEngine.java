@@ -0,0 +1,319 @@
+package ru.practicum.stats.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.stats.model.TimeRange;
+import ru.practicum.stats.repository.RollupRepository;
+import ru.practicum.stats.wire.HitBatch;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers non-unique stats from memory when the requested range either covers every hit seen
+ * so far or lies within the last {@code window-minutes} minutes. Keeps an all-time
+ * {@link LongAdder} per app and uri, plus a ring of per-minute count arrays indexed by a dense
+ * counter index.
+ *
+ * <p>The rollup tables are updated in the same transaction as the raw hits, so they serve as
+ * the checkpoint: on startup totals are rebuilt from the day rollups and the ring from the
+ * minute rollups. Counts only cover hits ingested by this instance after that, so the engine
+ * must be disabled when several stats servers share a database.
+ */
+@Component
+@DependsOn("hitPartitionManager")
+@Slf4j
+public class HotCounterEngine {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final long SECONDS_PER_MINUTE = 60;
+
+    private final RollupRepository rollupRepository;
+    private final HitDictionary hitDictionary;
+    private final boolean enabled;
+    private final int windowMinutes;
+    private final int maxKeys;
+    private final int chunkCount;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final Set<Integer> appIds = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final AtomicReferenceArray<MinuteBucket> ring;
+    private final AtomicLong minSecond = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxSecond = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong maxMinute = new AtomicLong(Long.MIN_VALUE);
+    private volatile long firstRingMinute;
+    private volatile boolean ready;
+
+    public HotCounterEngine(RollupRepository rollupRepository,
+                            HitDictionary hitDictionary,
+                            @Value("${stats.hot-counters.enabled:true}") boolean enabled,
+                            @Value("${stats.hot-counters.window-minutes:60}") int windowMinutes,
+                            @Value("${stats.hot-counters.max-keys:1000000}") int maxKeys) {
+        this.rollupRepository = rollupRepository;
+        this.hitDictionary = hitDictionary;
+        this.enabled = enabled;
+        this.windowMinutes = windowMinutes;
+        this.maxKeys = maxKeys;
+        this.chunkCount = (maxKeys + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.ring = new AtomicReferenceArray<>(windowMinutes);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        for (RollupRepository.CounterRow row : rollupRepository.findTotals()) {
+            Counter counter = counter(row.appId(), row.uriId(), row.app(), row.uri());
+            if (counter == null) {
+                return;
+            }
+            counter.total.add(row.hits());
+        }
+        Optional<TimeRange> minutes = rollupRepository.findMinuteBucketRange();
+        if (minutes.isPresent()) {
+            minSecond.set(toSecond(minutes.get().from()));
+            maxSecond.set(toSecond(minutes.get().to()) + SECONDS_PER_MINUTE - 1);
+        }
+        long currentMinute = currentMinute();
+        // minutes before this were not loaded, whatever the ring is later advanced to
+        firstRingMinute = currentMinute - windowMinutes + 1;
+        LocalDateTime windowStart = toDateTime(firstRingMinute * SECONDS_PER_MINUTE);
+        for (RollupRepository.CounterRow row : rollupRepository.findMinuteCountsSince(windowStart)) {
+            Counter counter = counter(row.appId(), row.uriId(), row.app(), row.uri());
+            if (counter == null) {
+                return;
+            }
+            long minute = Math.floorDiv(toSecond(row.bucketStart()), SECONDS_PER_MINUTE);
+            if (minute <= currentMinute + 1) {
+                addToRing(minute, counter.index, (int) row.hits());
+            }
+        }
+        ready = true;
+        log.info("Hot counters rebuilt for {} keys in {} ms", counters.size(),
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Counts hits that have been committed. Hits stamped more than a minute into the future
+     * only go to the all-time totals.
+     */
+    public void record(HitBatch hits, Map<String, Integer> appIdsByName, Map<String, Integer> uriIdsByName) {
+        if (!ready) {
+            return;
+        }
+        long currentMinute = currentMinute();
+        for (int i = 0; i < hits.size(); i++) {
+            String app = hits.app(i);
+            String uri = hits.uri(i);
+            Counter counter = counter(appIdsByName.get(app), uriIdsByName.get(uri), app, uri);
+            if (counter == null) {
+                return;
+            }
+            counter.total.increment();
+            long second = Math.floorDiv(hits.epochMilli(i), 1000L);
+            minSecond.accumulateAndGet(second, Math::min);
+            maxSecond.accumulateAndGet(second, Math::max);
+            long minute = Math.floorDiv(second, SECONDS_PER_MINUTE);
+            if (minute <= currentMinute + 1) {
+                addToRing(minute, counter.index, 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the hit counts for {@code [start, end]} (both inclusive), or empty if the range
+     * cannot be answered from memory.
+     */
+    public Optional<List<ViewStats>> query(LocalDateTime start, LocalDateTime end, List<String> uris, String app) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        long from = toSecond(start);
+        long to = toSecond(end);
+        long lastSecond = maxSecond.get();
+        boolean coversTail = to >= lastSecond;
+
+        long fromMinute;
+        long toMinute;
+        boolean allTime = from <= minSecond.get() && coversTail;
+        if (allTime) {
+            fromMinute = 0;
+            toMinute = 0;
+        } else {
+            long lastMinute = maxMinute.get();
+            if (from % SECONDS_PER_MINUTE != 0 || lastMinute == Long.MIN_VALUE) {
+                return Optional.empty();
+            }
+            fromMinute = from / SECONDS_PER_MINUTE;
+            if (coversTail && lastSecond < (lastMinute + 1) * SECONDS_PER_MINUTE) {
+                toMinute = lastMinute + 1;
+            } else if ((to + 1) % SECONDS_PER_MINUTE == 0) {
+                toMinute = (to + 1) / SECONDS_PER_MINUTE;
+            } else {
+                return Optional.empty();
+            }
+            if (fromMinute < Math.max(lastMinute - windowMinutes + 1, firstRingMinute) || toMinute > lastMinute + 1) {
+                return Optional.empty();
+            }
+        }
+
+        List<ViewStats> result = new ArrayList<>();
+        for (Counter counter : selectCounters(uris, app)) {
+            long hits = allTime ? counter.total.sum() : sumRing(counter.index, fromMinute, toMinute);
+            if (hits > 0) {
+                result.add(new ViewStats(counter.app, counter.uri, hits));
+            }
+        }
+        result.sort((a, b) -> Long.compare(b.getHits(), a.getHits()));
+        return Optional.of(result);
+    }
+
+    private Collection<Counter> selectCounters(List<String> uris, String app) {
+        Integer appId = null;
+        if (app != null) {
+            appId = hitDictionary.findAppIds(List.of(app)).get(app);
+            if (appId == null) {
+                return List.of();
+            }
+        }
+        List<Counter> selected = new ArrayList<>();
+        if (uris == null) {
+            for (Counter counter : counters.values()) {
+                if (appId == null || counter.app.equals(app)) {
+                    selected.add(counter);
+                }
+            }
+            return selected;
+        }
+        Collection<Integer> apps = appId == null ? appIds : List.of(appId);
+        for (Integer uriId : hitDictionary.findUriIds(uris).values()) {
+            for (Integer id : apps) {
+                Counter counter = counters.get(key(id, uriId));
+                if (counter != null) {
+                    selected.add(counter);
+                }
+            }
+        }
+        return selected;
+    }
+
+    private long sumRing(int index, long fromMinute, long toMinute) {
+        long sum = 0;
+        for (long minute = fromMinute; minute < toMinute; minute++) {
+            MinuteBucket bucket = ring.get((int) Math.floorMod(minute, (long) windowMinutes));
+            if (bucket != null && bucket.minute == minute) {
+                sum += bucket.get(index);
+            }
+        }
+        return sum;
+    }
+
+    private void addToRing(long minute, int index, int delta) {
+        int slot = (int) Math.floorMod(minute, (long) windowMinutes);
+        MinuteBucket bucket = ring.get(slot);
+        while (bucket == null || bucket.minute < minute) {
+            MinuteBucket fresh = new MinuteBucket(minute, chunkCount);
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                bucket = fresh;
+            } else {
+                bucket = ring.get(slot);
+            }
+        }
+        if (bucket.minute != minute) {
+            return;
+        }
+        bucket.add(index, delta);
+        maxMinute.accumulateAndGet(minute, Math::max);
+    }
+
+    private Counter counter(Integer appId, Integer uriId, String app, String uri) {
+        Counter counter = counters.get(key(appId, uriId));
+        if (counter != null) {
+            return counter;
+        }
+        counter = counters.computeIfAbsent(key(appId, uriId), k -> {
+            int index = nextIndex.getAndIncrement();
+            return index < maxKeys ? new Counter(app, uri, index) : null;
+        });
+        if (counter == null) {
+            ready = false;
+            log.warn("Hot counters disabled: more than {} app/uri pairs", maxKeys);
+            return null;
+        }
+        appIds.add(appId);
+        return counter;
+    }
+
+    private long currentMinute() {
+        return Math.floorDiv(toSecond(LocalDateTime.now()), SECONDS_PER_MINUTE);
+    }
+
+    private static long key(int appId, int uriId) {
+        return ((long) appId << Integer.SIZE) | (uriId & 0xFFFFFFFFL);
+    }
+
+    private static long toSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long second) {
+        return LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+    }
+
+    private static final class Counter {
+        private final String app;
+        private final String uri;
+        private final int index;
+        private final LongAdder total = new LongAdder();
+
+        private Counter(String app, String uri, int index) {
+            this.app = app;
+            this.uri = uri;
+            this.index = index;
+        }
+    }
+
+    private static final class MinuteBucket {
+        private final long minute;
+        private final AtomicReferenceArray<AtomicIntegerArray> chunks;
+
+        private MinuteBucket(long minute, int chunkCount) {
+            this.minute = minute;
+            this.chunks = new AtomicReferenceArray<>(chunkCount);
+        }
+
+        private void add(int index, int delta) {
+            int chunkIndex = index >>> CHUNK_BITS;
+            AtomicIntegerArray chunk = chunks.get(chunkIndex);
+            if (chunk == null) {
+                chunks.compareAndSet(chunkIndex, null, new AtomicIntegerArray(CHUNK_SIZE));
+                chunk = chunks.get(chunkIndex);
+            }
+            chunk.addAndGet(index & (CHUNK_SIZE - 1), delta);
+        }
+
+        private int get(int index) {
+            AtomicIntegerArray chunk = chunks.get(index >>> CHUNK_BITS);
+            return chunk == null ? 0 : chunk.get(index & (CHUNK_SIZE - 1));
+        }
+    }
+}
\ No newline at end of file
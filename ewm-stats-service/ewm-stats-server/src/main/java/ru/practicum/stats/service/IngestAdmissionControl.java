@@ -0,0 +1,110 @@
+package ru.practicum.stats.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import ru.practicum.stats.exception.IngestRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds concurrent ingest so that a burst of hits cannot take every request thread and pooled
+ * connection. At most {@code max-in-flight} ingest requests run at once, up to
+ * {@code max-waiting} more wait at most {@code queue-timeout} for a slot, and the rest are
+ * rejected with 429. Ingest that cannot get a database connection is rejected with 503. Reads
+ * are not limited here; instead the limits are checked against the resources reads need:
+ * <ul>
+ *     <li>An ingest holds at most one connection at a time, since open-in-view is off and the
+ *     dictionary transaction commits before the insert one begins. It is budgeted at
+ *     {@value #CONNECTIONS_PER_INGEST} in case the dictionary's {@code REQUIRES_NEW} ever runs
+ *     inside another transaction, and {@code max-in-flight} times that must leave part of the
+ *     pool to reads.</li>
+ *     <li>Ingest running or waiting holds a request thread, so {@code max-in-flight} plus
+ *     {@code max-waiting} must leave part of the Tomcat thread pool to reads. A waiting ingest
+ *     gives its thread back after {@code queue-timeout} at the latest.</li>
+ * </ul>
+ */
+@Component
+public class IngestAdmissionControl {
+    static final int CONNECTIONS_PER_INGEST = 2;
+
+    private final Semaphore inFlight;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final int maxInFlight;
+    private final int maxWaiting;
+    private final long queueTimeoutNanos;
+    private final Duration retryAfter;
+    private final LongAdder rejected = new LongAdder();
+
+    public IngestAdmissionControl(@Value("${stats.ingest.max-in-flight:8}") int maxInFlight,
+                                  @Value("${stats.ingest.max-waiting:64}") int maxWaiting,
+                                  @Value("${stats.ingest.queue-timeout:100ms}") Duration queueTimeout,
+                                  @Value("${stats.ingest.retry-after:1s}") Duration retryAfter,
+                                  @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                  @Value("${server.tomcat.threads.max:200}") int requestThreads,
+                                  MeterRegistry meterRegistry) {
+        if (maxInFlight * CONNECTIONS_PER_INGEST >= poolSize) {
+            throw new IllegalStateException("stats.ingest.max-in-flight=" + maxInFlight + " may take "
+                    + maxInFlight * CONNECTIONS_PER_INGEST + " of " + poolSize
+                    + " pooled connections, none left for reads");
+        }
+        if (maxInFlight + maxWaiting >= requestThreads) {
+            throw new IllegalStateException("stats.ingest.max-in-flight + max-waiting = " + (maxInFlight + maxWaiting)
+                    + " may take all " + requestThreads + " request threads, none left for reads");
+        }
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.maxWaiting = maxWaiting;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.retryAfter = retryAfter;
+        FunctionCounter.builder("stats.server.ingest.rejected", rejected, LongAdder::sum)
+                .register(meterRegistry);
+        Gauge.builder("stats.server.ingest.in.flight", this, c -> c.maxInFlight - c.inFlight.availablePermits())
+                .register(meterRegistry);
+    }
+
+    public void run(Runnable ingest) {
+        acquire();
+        try {
+            ingest.run();
+        } catch (CannotCreateTransactionException | DataAccessResourceFailureException e) {
+            throw reject(HttpStatus.SERVICE_UNAVAILABLE, "No database connection for ingest: " + e.getMessage());
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private void acquire() {
+        if (inFlight.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            throw reject(HttpStatus.TOO_MANY_REQUESTS, "Too many ingest requests waiting");
+        }
+        try {
+            if (!inFlight.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw reject(HttpStatus.TOO_MANY_REQUESTS, "Ingest capacity exhausted");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for ingest capacity");
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private IngestRejectedException reject(HttpStatus status, String message) {
+        rejected.increment();
+        return new IngestRejectedException(message, status, retryAfter);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package ru.practicum.stats.service;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.model.RollupGranularity;
+import ru.practicum.stats.repository.RollupRepository;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class SketchBackfillJob {
+    private static final int BATCH_SIZE = 500;
+
+    RollupRepository rollupRepository;
+    TransactionTemplate transactionTemplate;
+
+    @Scheduled(initialDelayString = "${stats.sketch.backfill.initial-delay:PT10S}",
+               fixedDelayString = "${stats.sketch.backfill.interval:PT1M}")
+    public void backfill() {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            if (!granularity.isSketched()) {
+                continue;
+            }
+            List<RollupRepository.BucketRef> buckets;
+            do {
+                buckets = rollupRepository.findUnsketchedBuckets(granularity, BATCH_SIZE);
+                for (RollupRepository.BucketRef bucket : buckets) {
+                    transactionTemplate.executeWithoutResult(status ->
+                            rollupRepository.backfillSketch(granularity, bucket));
+                }
+                if (!buckets.isEmpty()) {
+                    log.debug("Backfilled {} {} sketches", buckets.size(), granularity);
+                }
+            } while (buckets.size() == BATCH_SIZE);
+        }
+    }
+}
\ No newline at end of file
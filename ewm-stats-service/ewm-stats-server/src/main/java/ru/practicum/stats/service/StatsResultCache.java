@@ -0,0 +1,143 @@
+package ru.practicum.stats.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.dto.StatsQuery;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caches /stats results of queries whose start and end fall on {@code bucket} boundaries; other
+ * queries bypass the cache, since a result for nearby aligned bounds could count different hits.
+ * Clients that align sliding windows to the bucket, as the stats client cache does, share
+ * entries. The URI list is sorted and deduplicated, so reordered URI lists share an entry too.
+ *
+ * <p>Each entry remembers the ingest version of its URIs when it was computed. Ingest bumps the
+ * versions of the URIs it wrote (striped by hash) and a global version for queries over all
+ * URIs, so an entry is served only while none of its URIs received hits. Versions are read
+ * before the result is computed, which makes a concurrent ingest at worst cause a reload.
+ */
+@Component
+public class StatsResultCache {
+    private static final int VERSION_STRIPES = 4096;
+
+    private final boolean enabled;
+    private final long bucketSeconds;
+    private final Cache<Key, Entry> cache;
+    private final AtomicLongArray uriVersions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong allUrisVersion = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    public StatsResultCache(@Value("${stats.cache.enabled:true}") boolean enabled,
+                            @Value("${stats.cache.bucket:1m}") Duration bucket,
+                            @Value("${stats.cache.max-rows:200000}") long maxRows,
+                            @Value("${stats.cache.ttl:10m}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.bucketSeconds = Math.max(1, bucket.toSeconds());
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((Key key, Entry entry) -> entry.stats().size() + 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        bindMetrics(meterRegistry);
+    }
+
+    public List<ViewStats> get(StatsQuery query, Function<StatsQuery, List<ViewStats>> loader) {
+        if (!enabled || Boolean.TRUE.equals(query.getExact())) {
+            return loader.apply(query);
+        }
+        if (!isAligned(query.getStart()) || !isAligned(query.getEnd())) {
+            bypassed.increment();
+            return loader.apply(query);
+        }
+        List<String> uris = query.getUris() == null ? null : query.getUris().stream().distinct().sorted().toList();
+        String app = query.getApp() == null || query.getApp().isBlank() ? null : query.getApp();
+        Key key = new Key(query.getStart(), query.getEnd(), uris, Boolean.TRUE.equals(query.getUnique()), app);
+        long version = version(uris);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+            return entry.stats();
+        }
+        misses.increment();
+        List<ViewStats> stats = List.copyOf(loader.apply(
+                new StatsQuery(key.start(), key.end(), uris, key.unique(), key.app(), false, false)));
+        cache.put(key, new Entry(version, stats));
+        return stats;
+    }
+
+    public void invalidate(Collection<String> uris) {
+        if (!enabled) {
+            return;
+        }
+        for (String uri : uris) {
+            uriVersions.incrementAndGet(stripe(uri));
+        }
+        allUrisVersion.incrementAndGet();
+    }
+
+    private long version(List<String> uris) {
+        if (uris == null) {
+            return allUrisVersion.get();
+        }
+        // versions only grow, so the sum changes whenever any of them does
+        long version = 0;
+        for (String uri : uris) {
+            version += uriVersions.get(stripe(uri));
+        }
+        return version;
+    }
+
+    private boolean isAligned(LocalDateTime time) {
+        return time.getNano() == 0 && Math.floorMod(time.toEpochSecond(ZoneOffset.UTC), bucketSeconds) == 0;
+    }
+
+    private void bindMetrics(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("stats.server.cache.hits", hits, LongAdder::sum)
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.server.cache.misses", misses, LongAdder::sum)
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.server.cache.bypassed", bypassed, LongAdder::sum)
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.server.cache.evictions", cache, c -> c.stats().evictionCount())
+                .register(meterRegistry);
+        Gauge.builder("stats.server.cache.hit.ratio", this, StatsResultCache::hitRatio)
+                .register(meterRegistry);
+        Gauge.builder("stats.server.cache.size", cache, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    private double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 1.0 : (double) hitCount / total;
+    }
+
+    private static int stripe(String uri) {
+        return Math.floorMod(uri.hashCode(), VERSION_STRIPES);
+    }
+
+    private record Key(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique, String app) {
+    }
+
+    private record Entry(long version, List<ViewStats> stats) {
+    }
+}
\ No newline at end of file
@@ -1,44 +1,353 @@
 package ru.practicum.stats.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.stats.dto.EndpointHit;
+import ru.practicum.stats.dto.StatsQuery;
+import ru.practicum.stats.dto.TimeSeries;
+import ru.practicum.stats.dto.TopViewStats;
+import ru.practicum.stats.dto.UriTimeSeries;
 import ru.practicum.stats.dto.ViewStats;
-import ru.practicum.stats.model.EndpointHitEntity;
+import ru.practicum.stats.model.RollupGranularity;
+import ru.practicum.stats.model.RollupPlan;
+import ru.practicum.stats.model.TimeRange;
+import ru.practicum.stats.repository.HitBatchRepository;
+import ru.practicum.stats.repository.RollupRepository;
 import ru.practicum.stats.repository.StatsRepository;
+import ru.practicum.stats.repository.ViewStatsProjection;
+import ru.practicum.stats.wire.HitBatch;
+import ru.practicum.stats.wire.IpLiterals;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class StatsService {
+    private static final Set<RollupGranularity> SKETCHED_GRANULARITIES = Arrays.stream(RollupGranularity.values())
+            .filter(RollupGranularity::isSketched)
+            .collect(Collectors.toCollection(() -> EnumSet.noneOf(RollupGranularity.class)));
 
     StatsRepository statsRepository;
+    HitBatchRepository hitBatchRepository;
+    RollupRepository rollupRepository;
+    HitDictionary hitDictionary;
+    HitDeduplicator hitDeduplicator;
+    HotCounterEngine hotCounterEngine;
+    StatsResultCache resultCache;
+    TopHitsTracker topHitsTracker;
+    UriIndex uriIndex;
+    TransactionTemplate transactionTemplate;
+    MeterRegistry meterRegistry;
+
+    @NonFinal
+    @Value("${stats.rollup.enabled:true}")
+    boolean rollupEnabled;
+
+    @NonFinal
+    @Value("${stats.timeseries.max-buckets:10000}")
+    int maxTimeSeriesBuckets;
 
-    @Transactional
     public void saveHit(EndpointHit endpointHit) {
-        EndpointHitEntity entity = new EndpointHitEntity();
-        entity.setApp(endpointHit.getApp());
-        entity.setUri(endpointHit.getUri());
-        entity.setIp(endpointHit.getIp());
-        entity.setTimestamp(endpointHit.getTimestamp());
-        statsRepository.save(entity);
+        if (IpLiterals.normalize(endpointHit.getIp()) == null) {
+            throw new IllegalArgumentException("Not an ip address: " + endpointHit.getIp());
+        }
+        saveHits(List.of(endpointHit));
+    }
+
+    public void saveHits(List<EndpointHit> endpointHits) {
+        saveHits(HitBatch.of(endpointHits));
+    }
+
+    /**
+     * Stores the hits of {@code received} that were not ingested before. Ips are stored as
+     * {@code inet}: an X-Forwarded-For list is reduced to its first entry, and a hit whose ip is
+     * not an ip literal is left out and counted, so it cannot fail the rest of the batch.
+     */
+    public void saveHits(HitBatch received) {
+        HitBatch valid = received.mapIps(IpLiterals::normalize);
+        if (valid.size() < received.size()) {
+            int invalid = received.size() - valid.size();
+            meterRegistry.counter("stats.server.ingest.invalid.ip").increment(invalid);
+            log.warn("Dropped {} of {} hits without a valid ip", invalid, received.size());
+        }
+        HitBatch unseen = hitDeduplicator.dropSeen(valid);
+        if (unseen.size() == 0) {
+            return;
+        }
+        // resolved before the insert transaction: new names are committed on their own
+        Map<String, Integer> appIds = hitDictionary.getAppIds(unseen.apps());
+        Map<String, Integer> uriIds = hitDictionary.getUriIds(unseen.uris());
+        HitBatch batch = transactionTemplate.execute(status -> {
+            HitBatch claimed = hitDeduplicator.claim(unseen);
+            if (claimed.size() > 0) {
+                hitBatchRepository.saveAll(claimed, appIds, uriIds);
+                rollupRepository.increment(claimed, appIds, uriIds);
+            }
+            return claimed;
+        });
+        hitDeduplicator.markSeen(unseen);
+        if (batch.size() == 0) {
+            return;
+        }
+        hotCounterEngine.record(batch, appIds, uriIds);
+        topHitsTracker.record(batch);
+        uriIndex.addAll(uriIds.keySet());
+        resultCache.invalidate(uriIds.keySet());
+    }
+
+    @Transactional(readOnly = true)
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                    Boolean exact) {
+        return queryStats(new StatsQuery(start, end, uris, unique, null, exact, false));
     }
 
     @Transactional(readOnly = true)
-    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
+    public List<ViewStats> queryStats(StatsQuery query) {
+        List<String> uris = query.getUris();
         if (uris != null && uris.isEmpty()) {
             return List.of();
         }
-        if (Boolean.TRUE.equals(unique)) {
-            return statsRepository.getUniqueStats(start, end, uris);
+        if (Boolean.TRUE.equals(query.getAggregate())) {
+            return queryAggregated(query);
+        }
+        if (UriIndex.hasPatterns(uris)) {
+            List<String> matched = matchedUris(uriIndex.expand(uris).values());
+            return matched.isEmpty() ? List.of() : queryStats(withUris(query, matched));
+        }
+        boolean allApps = query.getApp() == null || query.getApp().isBlank();
+
+        if (!Boolean.TRUE.equals(query.getUnique())) {
+            Optional<List<ViewStats>> hot = hotCounterEngine.query(query.getStart(), query.getEnd(), uris,
+                    allApps ? null : query.getApp());
+            if (hot.isPresent()) {
+                return hot.get();
+            }
+        }
+        return resultCache.get(query, this::computeStats);
+    }
+
+    /**
+     * Counts hits per {@code granularity} bucket for every app and uri with hits in range. Buckets
+     * are aligned to the granularity, so the first and last one cover their whole period even
+     * when {@code start} or {@code end} falls inside it. Non-unique counts come from that
+     * granularity's rollup table, unique ones from the raw hits; either way in one query.
+     */
+    @Transactional(readOnly = true)
+    public TimeSeries getTimeSeries(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                    RollupGranularity granularity, boolean unique, String app) {
+        ChronoUnit unit = granularity.getUnit();
+        LocalDateTime first = start.truncatedTo(unit);
+        LocalDateTime last = end.truncatedTo(unit);
+        long buckets = unit.between(first, last) + 1;
+        if (buckets > maxTimeSeriesBuckets) {
+            throw new RuntimeException("Time series must not have more than " + maxTimeSeriesBuckets + " buckets");
+        }
+        String name = granularity.name().toLowerCase();
+        String appParam = app == null || app.isBlank() ? null : app;
+        Optional<RollupRepository.IdFilter> idFilter = idFilter(uris, appParam);
+        if (idFilter.isEmpty()) {
+            return new TimeSeries(first, name, (int) buckets, List.of());
+        }
+
+        Map<SeriesKey, long[]> series = new HashMap<>();
+        Consumer<RollupRepository.BucketCount> consumer = row -> {
+            long[] hits = series.computeIfAbsent(new SeriesKey(row.app(), row.uri()), k -> new long[(int) buckets]);
+            hits[(int) unit.between(first, row.bucketStart())] += row.hits();
+        };
+        TimeRange range = new TimeRange(first, last.plus(1, unit));
+        if (rollupEnabled && !unique) {
+            rollupRepository.streamBucketCounts(granularity, range, idFilter.get(), consumer);
         } else {
-            return statsRepository.getStats(start, end, uris);
+            rollupRepository.streamRawBucketCounts(granularity, range, idFilter.get(), unique, consumer);
+        }
+
+        // busiest first, like /stats
+        List<UriTimeSeries> result = series.entrySet().stream()
+                .map(e -> new UriTimeSeries(e.getKey().app(), e.getKey().uri(), e.getValue()))
+                .sorted(Comparator.comparingLong((UriTimeSeries s) -> Arrays.stream(s.getHits()).sum()).reversed())
+                .toList();
+        return new TimeSeries(first, name, (int) buckets, result);
+    }
+
+    public List<TopViewStats> getTop(String app, Duration window, int n) {
+        return topHitsTracker.top(app == null || app.isBlank() ? null : app, window, n);
+    }
+
+    /**
+     * Passes the result of {@code query} to {@code consumer} row by row, reading from a database
+     * cursor so memory use does not depend on the number of rows. Bypasses the in-memory
+     * counters and the result cache; unique counts are always exact here.
+     */
+    public void streamStats(StatsQuery query, Consumer<ViewStats> consumer) {
+        List<String> uris = query.getUris();
+        if (uris != null && uris.isEmpty()) {
+            return;
+        }
+        if (Boolean.TRUE.equals(query.getAggregate())) {
+            // at most one row per pattern and app
+            queryAggregated(query).forEach(consumer);
+            return;
+        }
+        if (UriIndex.hasPatterns(uris)) {
+            List<String> matched = matchedUris(uriIndex.expand(uris).values());
+            if (!matched.isEmpty()) {
+                streamStats(withUris(query, matched), consumer);
+            }
+            return;
+        }
+        boolean allUris = uris == null;
+        String[] urisParam = allUris ? new String[0] : uris.toArray(new String[0]);
+        boolean allApps = query.getApp() == null || query.getApp().isBlank();
+        String appParam = allApps ? "" : query.getApp();
+        boolean unique = Boolean.TRUE.equals(query.getUnique());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (rollupEnabled && !unique && !Boolean.TRUE.equals(query.getExact())) {
+                TimeRange range = new TimeRange(query.getStart(), query.getEnd().plusSeconds(1));
+                idFilter(uris, allApps ? null : appParam).ifPresent(idFilter ->
+                        rollupRepository.streamStats(RollupPlan.of(range), idFilter, consumer));
+                return;
+            }
+            try (Stream<ViewStatsProjection> rows = unique
+                    ? statsRepository.streamUniqueStats(query.getStart(), query.getEnd(), allUris, urisParam,
+                            allApps, appParam)
+                    : statsRepository.streamStats(query.getStart(), query.getEnd(), allUris, urisParam,
+                            allApps, appParam)) {
+                rows.forEach(r -> consumer.accept(new ViewStats(r.getApp(), r.getUri(), r.getHits())));
+            }
+        });
+    }
+
+    /**
+     * Answers {@code query} with one row per app for each pattern, named after the pattern, and
+     * the usual rows for plain uris. Without uris every hit falls under {@code *}. Unique counts
+     * are distinct IPs across all uris of a pattern, counted from the raw hits.
+     */
+    private List<ViewStats> queryAggregated(StatsQuery query) {
+        Map<String, List<String>> patterns = query.getUris() == null
+                ? Collections.singletonMap(UriIndex.WILDCARD, null)
+                : uriIndex.expand(query.getUris());
+        boolean allApps = query.getApp() == null || query.getApp().isBlank();
+        String appParam = allApps ? "" : query.getApp();
+
+        List<ViewStats> result = new ArrayList<>();
+        for (Map.Entry<String, List<String>> pattern : patterns.entrySet()) {
+            List<String> matched = pattern.getValue();
+            if (matched != null && matched.isEmpty()) {
+                continue;
+            }
+            if (matched != null && !UriIndex.isPattern(pattern.getKey())) {
+                result.addAll(queryStats(withUris(query, matched)));
+            } else if (Boolean.TRUE.equals(query.getUnique())) {
+                statsRepository.queryUniqueTotal(pattern.getKey(), query.getStart(), query.getEnd(),
+                                matched == null, matched == null ? new String[0] : matched.toArray(new String[0]),
+                                allApps, appParam)
+                        .forEach(r -> result.add(new ViewStats(r.getApp(), r.getUri(), r.getHits())));
+            } else {
+                Map<String, Long> hitsByApp = new TreeMap<>();
+                for (ViewStats stats : queryStats(withUris(query, matched))) {
+                    hitsByApp.merge(stats.getApp(), stats.getHits(), Long::sum);
+                }
+                hitsByApp.forEach((app, hits) -> result.add(new ViewStats(app, pattern.getKey(), hits)));
+            }
+        }
+        result.sort((a, b) -> Long.compare(b.getHits(), a.getHits()));
+        return result;
+    }
+
+    private static List<String> matchedUris(Collection<List<String>> matches) {
+        return matches.stream()
+                .flatMap(List::stream)
+                .distinct()
+                .toList();
+    }
+
+    private static StatsQuery withUris(StatsQuery query, List<String> uris) {
+        return new StatsQuery(query.getStart(), query.getEnd(), uris, query.getUnique(), query.getApp(),
+                query.getExact(), false);
+    }
+
+    private List<ViewStats> computeStats(StatsQuery query) {
+        List<String> uris = query.getUris();
+        boolean allUris = uris == null;
+        String[] urisParam = allUris ? new String[0] : uris.toArray(new String[0]);
+        boolean allApps = query.getApp() == null || query.getApp().isBlank();
+        String appParam = allApps ? "" : query.getApp();
+
+        if (rollupEnabled && !Boolean.TRUE.equals(query.getExact())) {
+            Optional<RollupRepository.IdFilter> idFilter = idFilter(uris, allApps ? null : appParam);
+            if (idFilter.isEmpty()) {
+                return List.of();
+            }
+            // the API treats end as inclusive; stored timestamps have second precision
+            TimeRange range = new TimeRange(query.getStart(), query.getEnd().plusSeconds(1));
+            if (!Boolean.TRUE.equals(query.getUnique())) {
+                return rollupRepository.getStats(RollupPlan.of(range), idFilter.get());
+            }
+            Optional<List<ViewStats>> estimated = rollupRepository.getUniqueStats(
+                    RollupPlan.of(range, SKETCHED_GRANULARITIES), idFilter.get());
+            if (estimated.isPresent()) {
+                return estimated.get();
+            }
         }
+
+        List<ViewStatsProjection> rows = Boolean.TRUE.equals(query.getUnique())
+                ? statsRepository.queryUniqueStats(query.getStart(), query.getEnd(), allUris, urisParam, allApps, appParam)
+                : statsRepository.queryStats(query.getStart(), query.getEnd(), allUris, urisParam, allApps, appParam);
+        return rows.stream()
+                .map(r -> new ViewStats(r.getApp(), r.getUri(), r.getHits()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Dictionary ids of {@code uris} and {@code app}, either of which may be null for no filter.
+     * Empty if a filter names nothing that was ever hit, so the query cannot match anything.
+     */
+    private Optional<RollupRepository.IdFilter> idFilter(List<String> uris, String app) {
+        List<Integer> uriIds = null;
+        if (uris != null) {
+            uriIds = List.copyOf(hitDictionary.findUriIds(uris).values());
+            if (uriIds.isEmpty()) {
+                return Optional.empty();
+            }
+        }
+        Integer appId = null;
+        if (app != null) {
+            appId = hitDictionary.findAppIds(List.of(app)).get(app);
+            if (appId == null) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new RollupRepository.IdFilter(uriIds, appId));
+    }
+
+    private record SeriesKey(String app, String uri) {
     }
 }
\ No newline at end of file
@@ -0,0 +1,307 @@
+package ru.practicum.stats.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.dto.TopViewStats;
+import ru.practicum.stats.model.RollupGranularity;
+import ru.practicum.stats.repository.TopSketchRepository;
+import ru.practicum.stats.repository.TopSketchRepository.SketchSnapshot;
+import ru.practicum.stats.sketch.SpaceSaving;
+import ru.practicum.stats.wire.HitBatch;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tracks the most viewed uris of each app in {@link SpaceSaving} sketches kept per minute for
+ * the last hour and per hour for the last {@code retention-hours}. Committed hits are added to
+ * the bucket of their timestamp, and a query merges the buckets that cover the window, rounded
+ * up to whole buckets, so its cost depends on the bucket count and sketch capacity only.
+ *
+ * <p>Buckets changed since the last snapshot are saved to {@code hit_top_sketches} periodically
+ * and on shutdown, and loaded back on startup; hits counted after the last snapshot are lost if
+ * the process dies. Like {@link HotCounterEngine} it only sees hits ingested by this instance.
+ */
+@Component
+@Slf4j
+public class TopHitsTracker {
+    private static final int MINUTE_BUCKETS = 60;
+    private static final Comparator<TopViewStats> BY_HITS =
+            Comparator.comparing(TopViewStats::getHits, Comparator.reverseOrder());
+
+    private final TopSketchRepository sketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int capacity;
+    private final int hourBuckets;
+    private final Map<String, AppBuckets> apps = new ConcurrentHashMap<>();
+
+    public TopHitsTracker(TopSketchRepository sketchRepository,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${stats.top.enabled:true}") boolean enabled,
+                          @Value("${stats.top.capacity:1000}") int capacity,
+                          @Value("${stats.top.retention-hours:168}") int hourBuckets) {
+        this.sketchRepository = sketchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.hourBuckets = hourBuckets;
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!enabled) {
+            return;
+        }
+        long nowSecond = toSecond(LocalDateTime.now());
+        int restored = 0;
+        for (RollupGranularity granularity : List.of(RollupGranularity.MINUTE, RollupGranularity.HOUR)) {
+            long unitSeconds = granularity.getUnit().getDuration().toSeconds();
+            long current = Math.floorDiv(nowSecond, unitSeconds);
+            long oldest = current - bucketCount(granularity) + 1;
+            for (SketchSnapshot snapshot : sketchRepository.findSince(granularity, toDateTime(oldest * unitSeconds))) {
+                SpaceSaving sketch = new SpaceSaving(capacity);
+                sketch.merge(SpaceSaving.fromBytes(snapshot.sketch()));
+                long index = Math.floorDiv(toSecond(snapshot.bucketStart()), unitSeconds);
+                if (index <= current + 1) {
+                    appBuckets(snapshot.app()).ring(granularity).restore(index, sketch);
+                    restored++;
+                }
+            }
+        }
+        log.info("Restored {} top endpoint sketches", restored);
+    }
+
+    /**
+     * Counts hits that have been committed. Hits older than the tracked buckets or stamped more
+     * than a bucket into the future are ignored.
+     */
+    public void record(HitBatch hits) {
+        if (!enabled) {
+            return;
+        }
+        long nowSecond = toSecond(LocalDateTime.now());
+        for (int i = 0; i < hits.size(); i++) {
+            AppBuckets buckets = appBuckets(hits.app(i));
+            long second = Math.floorDiv(hits.epochMilli(i), 1000L);
+            buckets.minutes.add(second, nowSecond, hits.uri(i));
+            buckets.hours.add(second, nowSecond, hits.uri(i));
+        }
+    }
+
+    /**
+     * Returns the {@code n} most viewed uris of {@code app}, or of all apps if it is null, over
+     * the last {@code window}. Windows of up to an hour are counted by the minute, longer ones
+     * by the hour.
+     */
+    public List<TopViewStats> top(String app, Duration window, int n) {
+        if (!enabled) {
+            throw new RuntimeException("Top endpoints are disabled");
+        }
+        if (n < 1 || n > capacity) {
+            throw new RuntimeException("n must be between 1 and " + capacity);
+        }
+        if (window.isNegative() || window.isZero()) {
+            throw new RuntimeException("Window must be positive");
+        }
+        RollupGranularity granularity = window.compareTo(Duration.ofMinutes(MINUTE_BUCKETS)) <= 0
+                ? RollupGranularity.MINUTE
+                : RollupGranularity.HOUR;
+        long unitSeconds = granularity.getUnit().getDuration().toSeconds();
+        long count = (window.toSeconds() + unitSeconds - 1) / unitSeconds;
+        if (count > bucketCount(granularity)) {
+            throw new RuntimeException("Window must not exceed " + hourBuckets + " hours");
+        }
+        long current = Math.floorDiv(toSecond(LocalDateTime.now()), unitSeconds);
+
+        Collection<String> selected = app == null ? apps.keySet() : List.of(app);
+        List<TopViewStats> result = new ArrayList<>();
+        for (String name : selected) {
+            AppBuckets buckets = apps.get(name);
+            if (buckets == null) {
+                continue;
+            }
+            SpaceSaving merged = buckets.ring(granularity).merge(current - count + 1, current + 1);
+            for (SpaceSaving.Estimate estimate : merged.top(n)) {
+                result.add(new TopViewStats(name, estimate.key(), estimate.count(), estimate.error()));
+            }
+        }
+        result.sort(BY_HITS);
+        return result.size() > n ? List.copyOf(result.subList(0, n)) : result;
+    }
+
+    @Scheduled(initialDelayString = "${stats.top.snapshot.interval:PT1M}",
+               fixedDelayString = "${stats.top.snapshot.interval:PT1M}")
+    public void snapshot() {
+        if (!enabled) {
+            return;
+        }
+        List<Bucket> taken = new ArrayList<>();
+        List<SketchSnapshot> snapshots = new ArrayList<>();
+        for (Map.Entry<String, AppBuckets> app : apps.entrySet()) {
+            for (Ring ring : List.of(app.getValue().minutes, app.getValue().hours)) {
+                ring.collectDirty(app.getKey(), taken, snapshots);
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!snapshots.isEmpty()) {
+                    sketchRepository.saveAll(snapshots);
+                }
+                sketchRepository.deleteBefore(RollupGranularity.MINUTE, now.minusMinutes(MINUTE_BUCKETS + 1));
+                sketchRepository.deleteBefore(RollupGranularity.HOUR, now.minusHours(hourBuckets + 1));
+            });
+            log.debug("Saved {} top endpoint sketches", snapshots.size());
+        } catch (RuntimeException e) {
+            taken.forEach(Bucket::markDirty);
+            log.warn("Failed to save top endpoint sketches: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        snapshot();
+    }
+
+    private AppBuckets appBuckets(String app) {
+        return apps.computeIfAbsent(app, a -> new AppBuckets(
+                new Ring(RollupGranularity.MINUTE, MINUTE_BUCKETS, capacity),
+                new Ring(RollupGranularity.HOUR, hourBuckets, capacity)));
+    }
+
+    private int bucketCount(RollupGranularity granularity) {
+        return granularity == RollupGranularity.MINUTE ? MINUTE_BUCKETS : hourBuckets;
+    }
+
+    private static long toSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long second) {
+        return LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+    }
+
+    private record AppBuckets(Ring minutes, Ring hours) {
+        private Ring ring(RollupGranularity granularity) {
+            return granularity == RollupGranularity.MINUTE ? minutes : hours;
+        }
+    }
+
+    private static final class Ring {
+        private final RollupGranularity granularity;
+        private final long unitSeconds;
+        private final int capacity;
+        private final AtomicReferenceArray<Bucket> buckets;
+
+        private Ring(RollupGranularity granularity, int size, int capacity) {
+            this.granularity = granularity;
+            this.unitSeconds = granularity.getUnit().getDuration().toSeconds();
+            this.capacity = capacity;
+            this.buckets = new AtomicReferenceArray<>(size);
+        }
+
+        private void add(long second, long nowSecond, String uri) {
+            long index = Math.floorDiv(second, unitSeconds);
+            if (index > Math.floorDiv(nowSecond, unitSeconds) + 1) {
+                return;
+            }
+            int slot = slot(index);
+            Bucket bucket = buckets.get(slot);
+            while (bucket == null || bucket.index < index) {
+                Bucket fresh = new Bucket(index, new SpaceSaving(capacity));
+                if (buckets.compareAndSet(slot, bucket, fresh)) {
+                    bucket = fresh;
+                } else {
+                    bucket = buckets.get(slot);
+                }
+            }
+            if (bucket.index == index) {
+                bucket.add(uri);
+            }
+        }
+
+        private void restore(long index, SpaceSaving sketch) {
+            int slot = slot(index);
+            Bucket existing = buckets.get(slot);
+            if (existing == null || existing.index < index) {
+                buckets.compareAndSet(slot, existing, new Bucket(index, sketch));
+            }
+        }
+
+        /**
+         * Merges the buckets {@code [from, to)} into a new sketch.
+         */
+        private SpaceSaving merge(long from, long to) {
+            SpaceSaving merged = new SpaceSaving(capacity);
+            for (long index = from; index < to; index++) {
+                Bucket bucket = buckets.get(slot(index));
+                if (bucket != null && bucket.index == index) {
+                    bucket.mergeInto(merged);
+                }
+            }
+            return merged;
+        }
+
+        private void collectDirty(String app, List<Bucket> taken, List<SketchSnapshot> snapshots) {
+            for (int slot = 0; slot < buckets.length(); slot++) {
+                Bucket bucket = buckets.get(slot);
+                byte[] bytes = bucket == null ? null : bucket.takeSnapshot();
+                if (bytes != null) {
+                    taken.add(bucket);
+                    snapshots.add(new SketchSnapshot(app, granularity,
+                            toDateTime(bucket.index * unitSeconds), bytes));
+                }
+            }
+        }
+
+        private int slot(long index) {
+            return (int) Math.floorMod(index, (long) buckets.length());
+        }
+    }
+
+    private static final class Bucket {
+        private final long index;
+        private final SpaceSaving sketch;
+        private boolean dirty;
+
+        private Bucket(long index, SpaceSaving sketch) {
+            this.index = index;
+            this.sketch = sketch;
+        }
+
+        private synchronized void add(String uri) {
+            sketch.add(uri, 1);
+            dirty = true;
+        }
+
+        private synchronized void mergeInto(SpaceSaving target) {
+            target.merge(sketch);
+        }
+
+        private synchronized byte[] takeSnapshot() {
+            if (!dirty) {
+                return null;
+            }
+            dirty = false;
+            return sketch.toBytes();
+        }
+
+        private synchronized void markDirty() {
+            dirty = true;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package ru.practicum.stats.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.index.UriTrie;
+import ru.practicum.stats.repository.HitDictionaryRepository;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resolves uri patterns such as {@code /events/*} to the known uris they match. A uri ending
+ * with {@code *} is a prefix pattern; any other uri only matches itself. Known uris are held in
+ * a {@link UriTrie} loaded from {@code hit_uris} on startup, extended on ingest and refreshed
+ * periodically to pick up uris written by other instances.
+ */
+@Component
+@Slf4j
+public class UriIndex {
+    public static final String WILDCARD = "*";
+
+    // identity values can commit out of order, so refreshes look back this many ids
+    private static final int REFRESH_OVERLAP = 1000;
+
+    private final HitDictionaryRepository dictionaryRepository;
+    private final int maxMatches;
+    private final UriTrie trie = new UriTrie();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile int lastId;
+
+    public UriIndex(HitDictionaryRepository dictionaryRepository,
+                    @Value("${stats.uri-index.max-matches:10000}") int maxMatches) {
+        this.dictionaryRepository = dictionaryRepository;
+        this.maxMatches = maxMatches;
+    }
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${stats.uri-index.refresh-interval:PT1M}",
+               fixedDelayString = "${stats.uri-index.refresh-interval:PT1M}")
+    public void refresh() {
+        Map<String, Integer> uris = dictionaryRepository.findUrisAfter(Math.max(0, lastId - REFRESH_OVERLAP));
+        int added = addAll(uris.keySet());
+        uris.values().stream().mapToInt(Integer::intValue).max().ifPresent(id -> lastId = Math.max(lastId, id));
+        if (added > 0) {
+            log.debug("Added {} uris to the uri index", added);
+        }
+    }
+
+    public int addAll(Collection<String> uris) {
+        int added = 0;
+        lock.writeLock().lock();
+        try {
+            for (String uri : uris) {
+                if (trie.add(uri)) {
+                    added++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return added;
+    }
+
+    public static boolean isPattern(String uri) {
+        return uri.endsWith(WILDCARD);
+    }
+
+    public static boolean hasPatterns(List<String> uris) {
+        return uris != null && uris.stream().anyMatch(UriIndex::isPattern);
+    }
+
+    /**
+     * Maps every entry of {@code uris} to the known uris it matches, keeping the request order.
+     * Plain uris map to themselves whether known or not.
+     */
+    public Map<String, List<String>> expand(List<String> uris) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (String uri : uris) {
+            if (!isPattern(uri)) {
+                result.put(uri, List.of(uri));
+                continue;
+            }
+            List<String> matches;
+            lock.readLock().lock();
+            try {
+                matches = trie.findByPrefix(uri.substring(0, uri.length() - WILDCARD.length()), maxMatches);
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (matches.size() > maxMatches) {
+                throw new RuntimeException("Pattern " + uri + " matches more than " + maxMatches + " uris");
+            }
+            result.put(uri, matches);
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package ru.practicum.stats.sketch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Blocked Bloom filter: the probes of a key are split between two 512-bit blocks, so a lookup
+ * hashes the key once and touches two cache lines however many probes it makes. Sized for
+ * {@code expectedKeys} at {@code falsePositiveRate}; confining probes to blocks makes the real
+ * rate a few times higher than a classic filter of the same size, and it keeps growing once
+ * more keys are added. Thread safe: bits are only ever set.
+ */
+public class BloomFilter {
+    private static final int BLOCK_WORDS = 8;
+    private static final int BLOCKS_PER_KEY = 2;
+    private static final int MAX_HASHES = 24;
+
+    private final AtomicLongArray words;
+    private final int blocks;
+    private final int probesPerBlock;
+
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        if (expectedKeys <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected keys must be positive and false positive rate in (0, 1)");
+        }
+        double bitsPerKey = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long blockCount = (long) Math.ceil(expectedKeys * bitsPerKey / (BLOCK_WORDS * Long.SIZE));
+        if (blockCount > Integer.MAX_VALUE / BLOCK_WORDS) {
+            throw new IllegalArgumentException("Bloom filter would be too large");
+        }
+        long hashes = Math.min(MAX_HASHES, Math.max(BLOCKS_PER_KEY, Math.round(bitsPerKey * Math.log(2))));
+        this.blocks = (int) blockCount;
+        this.probesPerBlock = (int) ((hashes + BLOCKS_PER_KEY - 1) / BLOCKS_PER_KEY);
+        this.words = new AtomicLongArray(blocks * BLOCK_WORDS);
+    }
+
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        long probe = mix(hash);
+        for (int b = 0; b < BLOCKS_PER_KEY; b++) {
+            int base = block(b == 0 ? hash : mix(hash + b));
+            long step = mix(probe) | 1;
+            for (int i = 0; i < probesPerBlock; i++) {
+                int bit = (int) (probe >>> 55);
+                if ((words.get(base + (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+                probe += step;
+            }
+            probe = mix(probe);
+        }
+        return true;
+    }
+
+    public void put(String key) {
+        long hash = hash(key);
+        long probe = mix(hash);
+        for (int b = 0; b < BLOCKS_PER_KEY; b++) {
+            int base = block(b == 0 ? hash : mix(hash + b));
+            long step = mix(probe) | 1;
+            for (int i = 0; i < probesPerBlock; i++) {
+                int bit = (int) (probe >>> 55);
+                int word = base + (bit >>> 6);
+                long mask = 1L << bit;
+                if ((words.get(word) & mask) == 0) {
+                    words.accumulateAndGet(word, mask, (x, y) -> x | y);
+                }
+                probe += step;
+            }
+            probe = mix(probe);
+        }
+    }
+
+    public long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    /**
+     * Maps the low 32 bits of {@code hash} onto a block and returns its first word.
+     */
+    private int block(long hash) {
+        return (int) (((hash & 0xFFFFFFFFL) * blocks) >>> 32) * BLOCK_WORDS;
+    }
+
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package ru.practicum.stats.sketch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy-hitter sketch that monitors at most {@code capacity} keys. Every reported
+ * count is an upper bound of the true count and exceeds it by at most the reported error. Within
+ * one sketch that error is never more than {@code total / capacity}, so any key seen more often
+ * is monitored. Sketches merge by adding counts, where a key missing from a full sketch is
+ * charged that sketch's minimum count, and keeping the largest {@code capacity} results; errors
+ * add up the same way. Not thread safe.
+ */
+public class SpaceSaving {
+    private static final Comparator<Entry> BY_COUNT = Comparator.comparingLong((Entry e) -> e.count)
+            .thenComparing(e -> e.key);
+
+    private final int capacity;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> byCount = new TreeSet<>(BY_COUNT);
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public static SpaceSaving fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        SpaceSaving sketch = new SpaceSaving(buffer.getInt());
+        sketch.total = buffer.getLong();
+        int size = buffer.getInt();
+        for (int i = 0; i < size; i++) {
+            byte[] key = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(key);
+            sketch.put(new Entry(new String(key, StandardCharsets.UTF_8), buffer.getLong(), buffer.getLong()));
+        }
+        return sketch;
+    }
+
+    public void add(String key, long count) {
+        total += count;
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            byCount.remove(entry);
+            entry.count += count;
+            byCount.add(entry);
+        } else if (entries.size() < capacity) {
+            put(new Entry(key, count, 0));
+        } else {
+            // the evicted key may have been seen up to min times, so the newcomer inherits that as error
+            Entry min = byCount.pollFirst();
+            entries.remove(min.key);
+            put(new Entry(key, min.count + count, min.count));
+        }
+    }
+
+    public void merge(SpaceSaving other) {
+        long thisMin = minCount();
+        long otherMin = other.minCount();
+        Set<String> keys = new HashSet<>(entries.keySet());
+        keys.addAll(other.entries.keySet());
+
+        List<Entry> merged = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Entry a = entries.get(key);
+            Entry b = other.entries.get(key);
+            long count = (a != null ? a.count : thisMin) + (b != null ? b.count : otherMin);
+            long error = (a != null ? a.error : thisMin) + (b != null ? b.error : otherMin);
+            merged.add(new Entry(key, count, error));
+        }
+        merged.sort(BY_COUNT.reversed());
+
+        entries.clear();
+        byCount.clear();
+        for (Entry entry : merged.subList(0, Math.min(capacity, merged.size()))) {
+            put(entry);
+        }
+        total += other.total;
+    }
+
+    /**
+     * Returns up to {@code n} monitored keys with the largest counts, largest first.
+     */
+    public List<Estimate> top(int n) {
+        List<Estimate> result = new ArrayList<>(Math.min(n, entries.size()));
+        for (Entry entry : byCount.descendingSet()) {
+            if (result.size() == n) {
+                break;
+            }
+            result.add(new Estimate(entry.key, entry.count, entry.error));
+        }
+        return result;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public byte[] toBytes() {
+        List<byte[]> keys = new ArrayList<>(entries.size());
+        int length = Integer.BYTES + Long.BYTES + Integer.BYTES;
+        for (Entry entry : byCount) {
+            byte[] key = entry.key.getBytes(StandardCharsets.UTF_8);
+            keys.add(key);
+            length += Short.BYTES + key.length + 2 * Long.BYTES;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(capacity).putLong(total).putInt(entries.size());
+        int i = 0;
+        for (Entry entry : byCount) {
+            byte[] key = keys.get(i++);
+            buffer.putShort((short) key.length).put(key).putLong(entry.count).putLong(entry.error);
+        }
+        return buffer.array();
+    }
+
+    private long minCount() {
+        return entries.size() < capacity ? 0 : byCount.first().count;
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.key, entry);
+        byCount.add(entry);
+    }
+
+    public record Estimate(String key, long count, long error) {
+    }
+
+    private static final class Entry {
+        private final String key;
+        private long count;
+        private final long error;
+
+        private Entry(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
\ No newline at end of file
@@ -1,10 +1,68 @@
-CREATE TABLE IF NOT EXISTS endpoint_hits (
-id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+CREATE TABLE IF NOT EXISTS hit_apps (
+id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS hit_uris (
+id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+uri VARCHAR(512) NOT NULL UNIQUE
+);
+
+CREATE SEQUENCE IF NOT EXISTS endpoint_hits_seq;
+
+-- endpoint_hits, its partitions and indexes are created by HitPartitionManager, which also
+-- converts tables left by older versions, rollups keyed on names included, and fills empty
+-- rollup tables from the raw hits
+
+CREATE TABLE IF NOT EXISTS hit_rollup_minute (
+uri_id INT NOT NULL,
+app_id INT NOT NULL,
+bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+hits BIGINT NOT NULL,
+PRIMARY KEY (uri_id, app_id, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hit_rollup_minute_bucket ON hit_rollup_minute(bucket_start);
+
+CREATE TABLE IF NOT EXISTS hit_rollup_hour (
+uri_id INT NOT NULL,
+app_id INT NOT NULL,
+bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+hits BIGINT NOT NULL,
+PRIMARY KEY (uri_id, app_id, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hit_rollup_hour_bucket ON hit_rollup_hour(bucket_start);
+
+CREATE TABLE IF NOT EXISTS hit_rollup_day (
+uri_id INT NOT NULL,
+app_id INT NOT NULL,
+bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+hits BIGINT NOT NULL,
+PRIMARY KEY (uri_id, app_id, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hit_rollup_day_bucket ON hit_rollup_day(bucket_start);
+
+ALTER TABLE hit_rollup_hour ADD COLUMN IF NOT EXISTS ip_sketch BYTEA;
+ALTER TABLE hit_rollup_hour ALTER COLUMN ip_sketch SET DEFAULT '\x00'::bytea;
+CREATE INDEX IF NOT EXISTS idx_hit_rollup_hour_unsketched ON hit_rollup_hour(bucket_start) WHERE ip_sketch IS NULL;
+
+ALTER TABLE hit_rollup_day ADD COLUMN IF NOT EXISTS ip_sketch BYTEA;
+ALTER TABLE hit_rollup_day ALTER COLUMN ip_sketch SET DEFAULT '\x00'::bytea;
+CREATE INDEX IF NOT EXISTS idx_hit_rollup_day_unsketched ON hit_rollup_day(bucket_start) WHERE ip_sketch IS NULL;
+
+CREATE TABLE IF NOT EXISTS hit_top_sketches (
 app VARCHAR(255) NOT NULL,
-uri VARCHAR(512) NOT NULL,
-ip VARCHAR(45) NOT NULL,
-timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL
+granularity VARCHAR(16) NOT NULL,
+bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+sketch BYTEA NOT NULL,
+PRIMARY KEY (app, granularity, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS hit_ids (
+hit_id VARCHAR(64) PRIMARY KEY,
+received_at TIMESTAMP WITHOUT TIME ZONE NOT NULL
 );
 
-CREATE INDEX IF NOT EXISTS idx_endpoint_hits_timestamp ON endpoint_hits(timestamp);
-CREATE INDEX IF NOT EXISTS idx_endpoint_hits_uri ON endpoint_hits(uri);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_hit_ids_received_at ON hit_ids(received_at);
\ No newline at end of file
@@ -0,0 +1,84 @@
+package ru.practicum.stats;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import ru.practicum.stats.dto.EndpointHit;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Runs the server against one embedded Postgres shared by every test class in the JVM. Classes
+ * with the same properties also share the application context, so each test writes hits under
+ * uris of its own. Postgres may stop before the contexts close at exit, so connections time out
+ * quickly rather than holding up the shutdown snapshot.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.connection-timeout=1000"})
+public abstract class PostgresIntegrationTest {
+    protected static final String APP = "ewm-main-service";
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static EmbeddedPostgres postgres;
+
+    @LocalServerPort
+    protected int port;
+
+    @Autowired
+    protected TestRestTemplate rest;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        EmbeddedPostgres database = postgres();
+        registry.add("spring.datasource.url", () -> database.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    protected ResponseEntity<Void> postHits(List<EndpointHit> hits) {
+        return rest.postForEntity("/hit/batch", hits, Void.class);
+    }
+
+    /**
+     * Calls {@code GET /stats} for {@code [start, end]}; {@code params} are appended as they are.
+     */
+    protected List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, String params) {
+        ResponseEntity<ViewStats[]> response = rest.getForEntity("/stats?start={start}&end={end}&" + params,
+                ViewStats[].class, format(start), format(end));
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("GET /stats failed with " + response.getStatusCode());
+        }
+        return List.of(response.getBody());
+    }
+
+    protected static EndpointHit hit(String uri, String ip, LocalDateTime timestamp) {
+        return new EndpointHit(null, APP, uri, ip, timestamp, null);
+    }
+
+    protected static String format(LocalDateTime time) {
+        return time.format(FORMATTER);
+    }
+
+    private static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return postgres;
+    }
+}
\ No newline at end of file
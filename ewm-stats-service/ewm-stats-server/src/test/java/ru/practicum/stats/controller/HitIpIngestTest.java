@@ -0,0 +1,56 @@
+package ru.practicum.stats.controller;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.PostgresIntegrationTest;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitIpIngestTest extends PostgresIntegrationTest {
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @Test
+    void invalidIpsAreDroppedWithoutLosingTheRestOfTheBatch() {
+        String uri = "/ip-test/mixed";
+
+        assertEquals(201, postHits(List.of(
+                hit(uri, "10.0.0.1", now),
+                hit(uri, "unknown", now),
+                hit(uri, "10.0.0.2, 192.168.0.1", now),
+                hit(uri, "2001:db8::1", now),
+                hit(uri, "999.1.1.1", now),
+                hit(uri, "10.0.0.1", now))).getStatusCode().value());
+
+        assertEquals(4L, hits(uri, false));
+        assertEquals(3L, hits(uri, true));
+    }
+
+    @Test
+    void forwardedForListCountsItsClientAddress() {
+        String uri = "/ip-test/forwarded";
+
+        postHits(List.of(hit(uri, " 10.0.0.3 , 10.0.0.4", now), hit(uri, "10.0.0.3", now)));
+
+        assertEquals(1L, hits(uri, true));
+    }
+
+    @Test
+    void singleHitWithInvalidIpIsRejected() {
+        String uri = "/ip-test/single";
+
+        assertEquals(400, rest.postForEntity("/hit", hit(uri, "unknown", now), Void.class).getStatusCode().value());
+        assertTrue(getStats(now.minusHours(1), now.plusHours(1), "uris=" + uri + "&exact=true").isEmpty());
+    }
+
+    private long hits(String uri, boolean unique) {
+        List<ViewStats> stats = getStats(now.minusHours(1), now.plusHours(1),
+                "uris=" + uri + "&exact=true&unique=" + unique);
+        assertEquals(1, stats.size());
+        return stats.get(0).getHits();
+    }
+}
\ No newline at end of file
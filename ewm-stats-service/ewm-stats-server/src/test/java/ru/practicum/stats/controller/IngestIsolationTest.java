@@ -0,0 +1,138 @@
+package ru.practicum.stats.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.stats.PostgresIntegrationTest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Floods ingest with more concurrent batches than it admits and checks that reads that need a
+ * pooled connection still answer within their SLO while the surplus ingest is turned away.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.maximum-pool-size=6",
+        "spring.datasource.hikari.connection-timeout=1000",
+        "stats.ingest.max-in-flight=2",
+        "stats.ingest.max-waiting=4",
+        "stats.ingest.queue-timeout=50ms",
+        "stats.cache.enabled=false",
+        "spring.jpa.show-sql=false"})
+class IngestIsolationTest extends PostgresIntegrationTest {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Duration READ_SLO = Duration.ofMillis(500);
+    private static final int WRITERS = 16;
+    private static final int BATCH_SIZE = 100;
+    private static final int READS = 100;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    void readsKeepTheirSloUnderAWriteStorm() throws Exception {
+        String batch = batch(LocalDateTime.now());
+        assertEquals(201, post(batch).statusCode());
+
+        Map<Integer, LongAdder> ingestStatuses = new ConcurrentHashMap<>();
+        Set<String> retryAfter = ConcurrentHashMap.newKeySet();
+        AtomicBoolean storming = new AtomicBoolean(true);
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        for (int i = 0; i < WRITERS; i++) {
+            writers.execute(() -> {
+                while (storming.get()) {
+                    HttpResponse<Void> response = post(batch);
+                    ingestStatuses.computeIfAbsent(response.statusCode(), s -> new LongAdder()).increment();
+                    response.headers().firstValue("Retry-After").ifPresent(retryAfter::add);
+                }
+            });
+        }
+
+        List<Long> latencies = new ArrayList<>(READS);
+        try {
+            for (int i = 0; i < READS; i++) {
+                long started = System.nanoTime();
+                HttpResponse<String> response = getStats();
+                latencies.add(System.nanoTime() - started);
+                assertEquals(200, response.statusCode(), response.body());
+            }
+        } finally {
+            storming.set(false);
+            writers.shutdown();
+            assertTrue(writers.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        Collections.sort(latencies);
+        Duration p95 = Duration.ofNanos(latencies.get(READS * 95 / 100 - 1));
+        assertTrue(p95.compareTo(READ_SLO) <= 0, "p95 read latency " + p95.toMillis() + "ms under storm");
+
+        assertTrue(ingestStatuses.containsKey(201), "no ingest admitted: " + ingestStatuses);
+        assertTrue(ingestStatuses.containsKey(429), "no ingest rejected: " + ingestStatuses);
+        assertTrue(Set.of(201, 429, 503).containsAll(ingestStatuses.keySet()), ingestStatuses.toString());
+        assertEquals(Set.of("1"), retryAfter);
+    }
+
+    private HttpResponse<Void> post(String batch) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/hit/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(batch))
+                .build();
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpResponse<String> getStats() throws IOException, InterruptedException {
+        // unique counts over an unaligned window are never served from memory
+        LocalDateTime now = LocalDateTime.now();
+        String query = "start=" + encode(now.minusHours(1).withSecond(7)) + "&end=" + encode(now.plusHours(1))
+                + "&uris=/storm/1&unique=true";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/stats?" + query))
+                .GET()
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String batch(LocalDateTime timestamp) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"app\":\"ewm-main-service\",\"uri\":\"/storm/").append(i % 50 + 1)
+                    .append("\",\"ip\":\"10.0.").append(i / 250).append('.').append(i % 250)
+                    .append("\",\"timestamp\":\"").append(timestamp.format(FORMATTER)).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static String encode(LocalDateTime time) {
+        return URLEncoder.encode(time.format(FORMATTER), StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
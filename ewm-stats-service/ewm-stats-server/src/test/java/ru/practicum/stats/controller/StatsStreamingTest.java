@@ -0,0 +1,106 @@
+package ru.practicum.stats.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.stats.PostgresIntegrationTest;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@code GET /stats} streamed as NDJSON, asked for either by {@code Accept} or by
+ * {@code stream=true}, returns one JSON object per line with the same rows as the JSON array.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatsStreamingTest extends PostgresIntegrationTest {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeAll
+    void postHits() {
+        LocalDateTime at = START.plusHours(1);
+        postHits(List.of(
+                hit("/streamed/1", "10.1.0.1", at),
+                hit("/streamed/1", "10.1.0.1", at.plusMinutes(1)),
+                hit("/streamed/1", "10.1.0.2", at.plusMinutes(2)),
+                hit("/streamed/2", "10.1.0.3", at.plusMinutes(3))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "uris=/streamed/1&uris=/streamed/2",
+            "uris=/streamed/1&uris=/streamed/2&unique=true",
+            "uris=/streamed/1&uris=/streamed/2&exact=true",
+            "uris=/streamed/*&aggregate=true"})
+    void acceptHeaderStreamsTheSameRowsAsTheJsonArray(String params) {
+        List<String> expected = hitsByUri(getStats(START, END, params));
+        assertFalse(expected.isEmpty());
+
+        ResponseEntity<String> response = stream(params, MediaType.APPLICATION_NDJSON);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertEquals(expected, hitsByUri(parse(response.getBody())));
+    }
+
+    @Test
+    void streamParameterStreamsWithoutTheAcceptHeader() {
+        ResponseEntity<String> response = stream("uris=/streamed/1&uris=/streamed/2&stream=true",
+                MediaType.ALL);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertEquals(List.of("/streamed/1=3", "/streamed/2=1"), hitsByUri(parse(response.getBody())));
+    }
+
+    @Test
+    void emptyResultStreamsNoLines() {
+        ResponseEntity<String> response = stream("uris=/streamed/none", MediaType.APPLICATION_NDJSON);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody() == null || response.getBody().isEmpty(), response.getBody());
+    }
+
+    private ResponseEntity<String> stream(String params, MediaType accept) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(accept));
+        return rest.exchange("/stats?start={start}&end={end}&" + params, HttpMethod.GET, new HttpEntity<>(headers),
+                String.class, format(START), format(END));
+    }
+
+    private List<ViewStats> parse(String body) {
+        List<ViewStats> stats = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            try {
+                stats.add(objectMapper.readValue(line, ViewStats.class));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return stats;
+    }
+
+    private static List<String> hitsByUri(List<ViewStats> stats) {
+        return stats.stream().map(s -> s.getUri() + "=" + s.getHits()).toList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package ru.practicum.stats.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.stats.PostgresIntegrationTest;
+import ru.practicum.stats.dto.TimeSeries;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@code GET /stats/timeseries} starts at the bucket holding {@code start}, fills
+ * every bucket up to the one holding {@code end}, zeros included, and adds each hit to the
+ * bucket of its timestamp.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TimeSeriesTest extends PostgresIntegrationTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 4, 1, 0, 0);
+
+    @BeforeAll
+    void postHits() {
+        postHits(List.of(
+                hit("/series/1", "10.2.0.1", DAY.plusHours(10).plusMinutes(5)),
+                hit("/series/1", "10.2.0.1", DAY.plusHours(10).plusMinutes(40)),
+                hit("/series/1", "10.2.0.2", DAY.plusHours(12).plusMinutes(5)),
+                hit("/series/2", "10.2.0.3", DAY.plusHours(11).plusMinutes(15))));
+    }
+
+    @Test
+    void hourBucketsCoverTheRangeAndKeepEmptyHours() {
+        TimeSeries series = getTimeSeries(DAY.plusHours(10).plusMinutes(20), DAY.plusHours(12).plusMinutes(10),
+                "uris=/series/1&uris=/series/2&granularity=hour");
+
+        assertEquals(DAY.plusHours(10), series.getStart());
+        assertEquals("hour", series.getGranularity());
+        assertEquals(3, series.getBuckets());
+        assertEquals(List.of("/series/1=[2, 0, 1]", "/series/2=[0, 1, 0]"), hitsByUri(series));
+    }
+
+    @Test
+    void uniqueBucketsCountDistinctIps() {
+        TimeSeries series = getTimeSeries(DAY.plusHours(10), DAY.plusHours(12).plusMinutes(59),
+                "uris=/series/1&granularity=hour&unique=true");
+
+        assertEquals(List.of("/series/1=[1, 0, 1]"), hitsByUri(series));
+    }
+
+    @Test
+    void minuteAndDayBucketsUseTheirOwnUnit() {
+        TimeSeries minutes = getTimeSeries(DAY.plusHours(10).plusMinutes(4).plusSeconds(30),
+                DAY.plusHours(10).plusMinutes(6), "uris=/series/1&granularity=minute");
+        TimeSeries days = getTimeSeries(DAY, DAY.plusHours(23), "uris=/series/1&granularity=day");
+
+        assertEquals(DAY.plusHours(10).plusMinutes(4), minutes.getStart());
+        assertEquals(List.of("/series/1=[0, 1, 0]"), hitsByUri(minutes));
+        assertEquals(List.of("/series/1=[3]"), hitsByUri(days));
+    }
+
+    @Test
+    void unknownUrisGiveNoSeriesButKeepTheBucketCount() {
+        TimeSeries series = getTimeSeries(DAY, DAY.plusHours(5), "uris=/series/none");
+
+        assertEquals(6, series.getBuckets());
+        assertTrue(series.getSeries().isEmpty());
+    }
+
+    @Test
+    void tooManyBucketsAreRejected() {
+        ResponseEntity<String> response = rest.getForEntity(
+                "/stats/timeseries?start={start}&end={end}&uris=/series/1&granularity=minute", String.class,
+                format(DAY), format(DAY.plusDays(30)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private TimeSeries getTimeSeries(LocalDateTime start, LocalDateTime end, String params) {
+        ResponseEntity<TimeSeries> response = rest.getForEntity(
+                "/stats/timeseries?start={start}&end={end}&" + params, TimeSeries.class, format(start), format(end));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    private static List<String> hitsByUri(TimeSeries series) {
+        return series.getSeries().stream().map(s -> s.getUri() + "=" + Arrays.toString(s.getHits())).toList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package ru.practicum.stats.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import ru.practicum.stats.PostgresIntegrationTest;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that a {@code *} pattern in {@code uris} expands to the known uris under its prefix,
+ * and that {@code aggregate=true} folds them into one row named after the pattern.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UriPatternStatsTest extends PostgresIntegrationTest {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 5, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+
+    @BeforeAll
+    void postHits() {
+        LocalDateTime at = START.plusHours(1);
+        postHits(List.of(
+                hit("/pattern/a/1", "10.3.0.1", at),
+                hit("/pattern/a/1", "10.3.0.1", at),
+                hit("/pattern/a/2", "10.3.0.1", at),
+                hit("/pattern/a/2", "10.3.0.2", at),
+                hit("/pattern/a/2", "10.3.0.3", at),
+                hit("/pattern/ab", "10.3.0.4", at),
+                hit("/pattern/b/1", "10.3.0.5", at)));
+    }
+
+    @Test
+    void patternExpandsToEveryUriUnderItsPrefix() {
+        assertEquals(List.of("/pattern/a/2=3", "/pattern/a/1=2"),
+                hitsByUri(getStats(START, END, "uris=/pattern/a/*")));
+        assertEquals(List.of("/pattern/a/2=3", "/pattern/a/1=2", "/pattern/ab=1"),
+                hitsByUri(getStats(START, END, "uris=/pattern/a*")));
+        assertEquals(List.of(), getStats(START, END, "uris=/pattern/c/*"));
+    }
+
+    @Test
+    void aggregateFoldsEachPatternIntoOneRow() {
+        assertEquals(List.of("/pattern/a/*=5", "/pattern/b/1=1"),
+                hitsByUri(getStats(START, END, "uris=/pattern/a/*&uris=/pattern/b/1&aggregate=true")));
+    }
+
+    @Test
+    void uniqueAggregateCountsEachIpOnceAcrossThePattern() {
+        assertEquals(List.of("/pattern/a/*=3"),
+                hitsByUri(getStats(START, END, "uris=/pattern/a/*&aggregate=true&unique=true")));
+    }
+
+    private static List<String> hitsByUri(List<ViewStats> stats) {
+        return stats.stream().map(s -> s.getUri() + "=" + s.getHits()).toList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package ru.practicum.stats.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UriTrieTest {
+
+    @Test
+    void prefixesMatchWholeEdgesAndEdgesCutMidway() {
+        UriTrie trie = trie("/events/1", "/events/12", "/events/2", "/event", "/users/1");
+
+        assertEquals(List.of("/event", "/events/1", "/events/12", "/events/2"), trie.findByPrefix("/event", 10));
+        assertEquals(List.of("/events/1", "/events/12"), trie.findByPrefix("/events/1", 10));
+        assertEquals(List.of("/events/12"), trie.findByPrefix("/events/12", 10));
+        assertEquals(List.of("/events/1", "/events/12", "/events/2"), trie.findByPrefix("/events/", 10));
+        assertEquals(List.of("/users/1"), trie.findByPrefix("/u", 10));
+        assertEquals(5, trie.findByPrefix("", 10).size());
+    }
+
+    @Test
+    void prefixesThatLeaveTheTrieMatchNothing() {
+        UriTrie trie = trie("/events/1", "/events/12");
+
+        assertEquals(List.of(), trie.findByPrefix("/events/3", 10));
+        assertEquals(List.of(), trie.findByPrefix("/events/123", 10));
+        assertEquals(List.of(), trie.findByPrefix("/eventz", 10));
+        assertEquals(List.of(), trie.findByPrefix("/x", 10));
+    }
+
+    @Test
+    void lookupStopsOnePastTheLimit() {
+        UriTrie trie = new UriTrie();
+        for (int i = 0; i < 100; i++) {
+            trie.add("/events/" + i);
+        }
+
+        assertEquals(4, trie.findByPrefix("/events/", 3).size());
+        assertEquals(100, trie.findByPrefix("/events/", 100).size());
+    }
+
+    @Test
+    void duplicatesAreNotCountedTwice() {
+        UriTrie trie = new UriTrie();
+
+        assertTrue(trie.add("/events/12"));
+        assertTrue(trie.add("/events/1"));
+        assertFalse(trie.add("/events/1"));
+        assertFalse(trie.add("/events/12"));
+        assertEquals(2, trie.size());
+    }
+
+    @Test
+    void matchesASortedSetOnRandomUris() {
+        Random random = new Random(42);
+        UriTrie trie = new UriTrie();
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            String uri = randomUri(random);
+            assertEquals(expected.add(uri), trie.add(uri));
+        }
+        assertEquals(expected.size(), trie.size());
+
+        for (int i = 0; i < 1_000; i++) {
+            String prefix = randomUri(random);
+            prefix = prefix.substring(0, random.nextInt(prefix.length() + 1));
+            List<String> matches = new ArrayList<>();
+            for (String uri : expected.tailSet(prefix)) {
+                if (!uri.startsWith(prefix)) {
+                    break;
+                }
+                matches.add(uri);
+            }
+            assertEquals(matches, trie.findByPrefix(prefix, Integer.MAX_VALUE - 1), prefix);
+        }
+    }
+
+    private static UriTrie trie(String... uris) {
+        UriTrie trie = new UriTrie();
+        for (String uri : uris) {
+            trie.add(uri);
+        }
+        return trie;
+    }
+
+    private static String randomUri(Random random) {
+        StringBuilder uri = new StringBuilder();
+        int segments = 1 + random.nextInt(3);
+        for (int s = 0; s < segments; s++) {
+            uri.append('/').append("abc".charAt(random.nextInt(3)));
+            int digits = random.nextInt(3);
+            for (int d = 0; d < digits; d++) {
+                uri.append(random.nextInt(10));
+            }
+        }
+        return uri.toString();
+    }
+}
\ No newline at end of file
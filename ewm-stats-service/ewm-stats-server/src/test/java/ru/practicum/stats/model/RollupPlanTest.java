@@ -0,0 +1,130 @@
+package ru.practicum.stats.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RollupPlanTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 3, 10, 0, 0);
+
+    @Test
+    void alignedRangeIsCoveredByWholeDays() {
+        RollupPlan plan = RollupPlan.of(range(DAY, DAY.plusDays(3)));
+
+        assertEquals(List.of(range(DAY, DAY.plusDays(3))), plan.getBuckets(RollupGranularity.DAY));
+        assertEquals(List.of(), plan.getBuckets(RollupGranularity.HOUR));
+        assertEquals(List.of(), plan.getBuckets(RollupGranularity.MINUTE));
+        assertEquals(List.of(), plan.getRaw());
+    }
+
+    @Test
+    void raggedEndsStepDownThroughHoursMinutesAndRawSeconds() {
+        LocalDateTime from = DAY.withHour(10).withMinute(15).withSecond(30);
+        LocalDateTime to = DAY.plusDays(2).withHour(13).withMinute(45).withSecond(10);
+
+        RollupPlan plan = RollupPlan.of(range(from, to));
+
+        assertEquals(List.of(range(DAY.plusDays(1), DAY.plusDays(2))), plan.getBuckets(RollupGranularity.DAY));
+        assertEquals(List.of(range(DAY.withHour(11), DAY.plusDays(1)),
+                        range(DAY.plusDays(2), to.withMinute(0).withSecond(0))),
+                plan.getBuckets(RollupGranularity.HOUR));
+        assertEquals(List.of(range(from.withMinute(16).withSecond(0), DAY.withHour(11)),
+                        range(to.withMinute(0).withSecond(0), to.withSecond(0))),
+                plan.getBuckets(RollupGranularity.MINUTE));
+        assertEquals(List.of(range(from, from.withMinute(16).withSecond(0)), range(to.withSecond(0), to)),
+                plan.getRaw());
+    }
+
+    @Test
+    void subMinuteRangeIsCountedFromRawHits() {
+        LocalDateTime from = DAY.withHour(12).withSecond(10);
+        LocalDateTime to = DAY.withHour(12).withSecond(40);
+
+        RollupPlan plan = RollupPlan.of(range(from, to));
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            assertEquals(List.of(), plan.getBuckets(granularity));
+        }
+        assertEquals(List.of(range(from, to)), plan.getRaw());
+    }
+
+    @Test
+    void zeroLengthRangeHasNothingToCount() {
+        LocalDateTime at = DAY.withHour(12).withMinute(30);
+
+        RollupPlan plan = RollupPlan.of(range(at, at));
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            assertEquals(List.of(), plan.getBuckets(granularity));
+        }
+        assertEquals(List.of(), plan.getRaw());
+    }
+
+    @Test
+    void singleInclusiveSecondIsOneRawSecond() {
+        // how StatsService turns an inclusive end into the plan's half-open range
+        LocalDateTime at = DAY.withHour(12).withMinute(30);
+
+        RollupPlan plan = RollupPlan.of(range(at, at.plusSeconds(1)));
+
+        assertEquals(List.of(range(at, at.plusSeconds(1))), plan.getRaw());
+    }
+
+    @Test
+    void skippedGranularitiesFallThroughToTheNextOne() {
+        LocalDateTime from = DAY.withHour(10).withMinute(15);
+        LocalDateTime to = DAY.plusDays(1).withHour(2).withMinute(20);
+
+        RollupPlan plan = RollupPlan.of(range(from, to), EnumSet.of(RollupGranularity.DAY, RollupGranularity.HOUR));
+
+        assertEquals(List.of(), plan.getBuckets(RollupGranularity.DAY));
+        assertEquals(List.of(range(DAY.withHour(11), to.withMinute(0))), plan.getBuckets(RollupGranularity.HOUR));
+        assertEquals(List.of(), plan.getBuckets(RollupGranularity.MINUTE));
+        assertEquals(List.of(range(from, DAY.withHour(11)), range(to.withMinute(0), to)), plan.getRaw());
+    }
+
+    @Test
+    void partsAreAlignedAndCoverTheRangeExactlyOnce() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1_000; i++) {
+            LocalDateTime from = DAY.plusSeconds(random.nextInt(3 * 86_400));
+            LocalDateTime to = from.plusSeconds(random.nextInt(random.nextBoolean() ? 7_200 : 4 * 86_400));
+            RollupPlan plan = RollupPlan.of(range(from, to));
+
+            List<TimeRange> parts = new ArrayList<>(plan.getRaw());
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                for (TimeRange bucket : plan.getBuckets(granularity)) {
+                    assertEquals(bucket.from(), bucket.from().truncatedTo(granularity.getUnit()));
+                    assertEquals(bucket.to(), bucket.to().truncatedTo(granularity.getUnit()));
+                    assertTrue(plan.getBuckets(granularity).size() <= 2);
+                }
+                parts.addAll(plan.getBuckets(granularity));
+            }
+            parts.sort(Comparator.comparing(TimeRange::from));
+
+            LocalDateTime covered = from;
+            for (TimeRange part : parts) {
+                assertTrue(!part.isEmpty(), part.toString());
+                assertEquals(covered, part.from(), "gap or overlap in " + range(from, to));
+                covered = part.to();
+            }
+            assertEquals(to, covered);
+            assertEquals(Duration.between(from, to), parts.stream()
+                    .map(p -> Duration.between(p.from(), p.to()))
+                    .reduce(Duration.ZERO, Duration::plus));
+        }
+    }
+
+    private static TimeRange range(LocalDateTime from, LocalDateTime to) {
+        return new TimeRange(from, to);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package ru.practicum.stats.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import ru.practicum.stats.PostgresIntegrationTest;
+import ru.practicum.stats.dto.EndpointHit;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.stats.wire.HitBatch;
+import ru.practicum.stats.wire.HitBatchCodec;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that answers built from the rollups match the raw {@code BETWEEN start AND end} answers
+ * over the same hits. The hits are sent in the binary format, which keeps milliseconds, and
+ * cluster around the edges of every range.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RollupStatsTest extends PostgresIntegrationTest {
+    private static final LocalDateTime BASE = LocalDate.now().minusDays(5).atStartOfDay();
+    private static final List<String> URIS = List.of("/rollup/a", "/rollup/b");
+    private static final List<LocalDateTime[]> RANGES = List.of(
+            range(BASE, BASE.plusDays(2)),
+            range(BASE.plusHours(10).plusMinutes(15).plusSeconds(30),
+                    BASE.plusDays(1).plusHours(13).plusMinutes(45).plusSeconds(10)),
+            range(BASE.plusHours(12).plusSeconds(10), BASE.plusHours(12).plusSeconds(40)),
+            range(BASE.plusHours(12).plusMinutes(30), BASE.plusHours(12).plusMinutes(30)));
+
+    private final List<EndpointHit> hits = new ArrayList<>();
+
+    @BeforeAll
+    void ingest() {
+        LocalDateTime last = BASE.plusDays(2).plusHours(1);
+        for (LocalDateTime at = BASE.minusHours(1); at.isBefore(last); at = at.plusSeconds(37)) {
+            add(at);
+        }
+        for (LocalDateTime[] range : RANGES) {
+            for (LocalDateTime edge : List.of(range[0], range[1])) {
+                add(edge.minusSeconds(1));
+                add(edge);
+                add(edge.plusNanos(500_000_000));
+                add(edge.plusSeconds(1));
+            }
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(HitBatchCodec.MEDIA_TYPE));
+        for (int from = 0; from < hits.size(); from += 1_000) {
+            byte[] body = HitBatchCodec.encode(HitBatch.of(hits.subList(from, Math.min(hits.size(), from + 1_000))));
+            assertEquals(HttpStatus.CREATED,
+                    rest.postForEntity("/hit/batch", new HttpEntity<>(body, headers), Void.class).getStatusCode());
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, whole days", "1, ragged ends", "2, under a minute", "3, a single second"})
+    void rollupAnswerEqualsTheRawAnswer(int index, String description) {
+        LocalDateTime start = RANGES.get(index)[0];
+        LocalDateTime end = RANGES.get(index)[1];
+
+        Map<String, Long> exact = hitsByUri(start, end, "unique=false&exact=true");
+        assertEquals(expectedHits(start, end), exact, description);
+        assertEquals(exact, hitsByUri(start, end, "unique=false"), description);
+        assertEquals(hitsByUri(start, end, "unique=true&exact=true"), hitsByUri(start, end, "unique=true"),
+                description);
+    }
+
+    private void add(LocalDateTime at) {
+        for (int u = 0; u < URIS.size(); u++) {
+            hits.add(hit(URIS.get(u), "10.3." + u + "." + hits.size() % 50, at));
+        }
+    }
+
+    private Map<String, Long> hitsByUri(LocalDateTime start, LocalDateTime end, String params) {
+        return getStats(start, end, params + "&uris=" + String.join(",", URIS)).stream()
+                .collect(Collectors.toMap(ViewStats::getUri, ViewStats::getHits));
+    }
+
+    /**
+     * Counts the sent hits the way the API defines the range: whole seconds, both ends inclusive.
+     */
+    private Map<String, Long> expectedHits(LocalDateTime start, LocalDateTime end) {
+        return hits.stream()
+                .filter(hit -> {
+                    LocalDateTime second = hit.getTimestamp().truncatedTo(ChronoUnit.SECONDS);
+                    return !second.isBefore(start) && !second.isAfter(end);
+                })
+                .collect(Collectors.groupingBy(EndpointHit::getUri, Collectors.counting()));
+    }
+
+    private static LocalDateTime[] range(LocalDateTime start, LocalDateTime end) {
+        return new LocalDateTime[]{start, end};
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package ru.practicum.stats.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import ru.practicum.stats.PostgresIntegrationTest;
+import ru.practicum.stats.dto.EndpointHit;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.stats.sketch.HyperLogLog;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares unique counts estimated from the hour and day sketches with the exact
+ * {@code COUNT(DISTINCT ip)} answer over the same hits, for a range that needs every part of
+ * the rollup plan: whole days and hours from sketches, ragged edges from raw hits.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UniqueEstimateTest extends PostgresIntegrationTest {
+    private static final LocalDateTime BASE = LocalDate.now().minusDays(3).atStartOfDay();
+    private static final LocalDateTime START = BASE.minusHours(1).plusSeconds(17);
+    private static final LocalDateTime END = BASE.plusDays(2).plusMinutes(5).plusSeconds(3);
+    private static final long SPAN_SECONDS = Duration.between(BASE, END).toSeconds();
+    private static final String LARGE = "/unique-estimate/large";
+    private static final int LARGE_IPS = 20_000;
+    private static final Map<String, Integer> SMALL = Map.of(
+            "/unique-estimate/1", 1,
+            "/unique-estimate/3", 3,
+            "/unique-estimate/40", 40,
+            "/unique-estimate/" + HyperLogLog.EXACT_LIMIT, HyperLogLog.EXACT_LIMIT);
+
+    @BeforeAll
+    void ingest() {
+        List<EndpointHit> hits = new ArrayList<>();
+        SMALL.forEach((uri, ips) -> {
+            for (int i = 0; i < 5 * ips; i++) {
+                // a mix of IPv4 and IPv6, each ip hit five times across the range
+                String ip = i % ips % 2 == 0 ? "10.1.0." + (i % ips) : "2001:db8::" + Integer.toHexString(i % ips);
+                hits.add(hit(uri, ip, at(i, 5 * ips)));
+            }
+        });
+        for (int i = 0; i < 2 * LARGE_IPS; i++) {
+            int ip = i % LARGE_IPS;
+            hits.add(hit(LARGE, "10.2." + (ip >> 8) + "." + (ip & 0xFF), at(i, 2 * LARGE_IPS)));
+        }
+        for (int from = 0; from < hits.size(); from += 1_000) {
+            assertEquals(201, postHits(hits.subList(from, Math.min(hits.size(), from + 1_000)))
+                    .getStatusCode().value());
+        }
+    }
+
+    @Test
+    void smallUniqueCountsAreExact() {
+        Map<String, Long> estimated = uniqueHits(false);
+        Map<String, Long> exact = uniqueHits(true);
+
+        SMALL.forEach((uri, ips) -> {
+            assertEquals(ips.longValue(), exact.get(uri), uri);
+            assertEquals(exact.get(uri), estimated.get(uri), uri);
+        });
+    }
+
+    @Test
+    void largeUniqueCountIsWithinTheStandardError() {
+        long estimated = uniqueHits(false).get(LARGE);
+        long exact = uniqueHits(true).get(LARGE);
+
+        assertEquals(LARGE_IPS, exact);
+        double error = Math.abs(estimated - exact) / (double) exact;
+        assertTrue(error <= 4 * HyperLogLog.STANDARD_ERROR, "estimate " + estimated + " is off by " + error);
+    }
+
+    @Test
+    void estimateAnswersWithoutScanningTheRawHits() {
+        uniqueHits(false);
+        uniqueHits(true);
+        long estimated = timeUniqueHits(false);
+        long exact = timeUniqueHits(true);
+
+        System.out.printf("unique over %d hits: sketches %d ms, COUNT(DISTINCT ip) %d ms%n",
+                2 * LARGE_IPS, estimated, exact);
+        assertTrue(estimated <= exact, "sketches " + estimated + " ms, exact " + exact + " ms");
+    }
+
+    private Map<String, Long> uniqueHits(boolean exact) {
+        List<String> uris = new ArrayList<>(SMALL.keySet());
+        uris.add(LARGE);
+        return getStats(START, END, "unique=true&exact=" + exact + "&uris=" + String.join(",", uris)).stream()
+                .collect(Collectors.toMap(ViewStats::getUri, ViewStats::getHits));
+    }
+
+    /**
+     * Best of five, in milliseconds.
+     */
+    private long timeUniqueHits(boolean exact) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long started = System.nanoTime();
+            uniqueHits(exact);
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        return best / 1_000_000;
+    }
+
+    private static LocalDateTime at(int i, int count) {
+        return BASE.plusSeconds(i * SPAN_SECONDS / count);
+    }
+}
\ No newline at end of file
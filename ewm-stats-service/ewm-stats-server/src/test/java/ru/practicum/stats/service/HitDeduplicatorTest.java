@@ -0,0 +1,84 @@
+package ru.practicum.stats.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.dto.EndpointHit;
+import ru.practicum.stats.repository.HitIdRepository;
+import ru.practicum.stats.wire.HitBatch;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HitDeduplicatorTest {
+    private HitIdRepository hitIdRepository;
+    private HitDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        hitIdRepository = mock(HitIdRepository.class);
+        deduplicator = new HitDeduplicator(hitIdRepository, true, 1_000, 0.01, Duration.ofDays(7),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void unseenIdsAreNotLookedUp() {
+        HitBatch batch = batch("a", "b", null);
+
+        assertEquals(3, deduplicator.dropSeen(batch).size());
+        verify(hitIdRepository, never()).findClaimed(any());
+    }
+
+    @Test
+    void repeatsWithinTheBatchAreDropped() {
+        assertEquals(List.of("a", "b"), hitIds(deduplicator.dropSeen(batch("a", "b", "a"))));
+    }
+
+    @Test
+    void seenIdsAreDroppedOnlyIfClaimed() {
+        deduplicator.markSeen(batch("a", "b"));
+        // "b" is in the filter but was never claimed, as after a false positive
+        when(hitIdRepository.findClaimed(any())).thenReturn(Set.of("a"));
+
+        HitBatch unseen = deduplicator.dropSeen(batch("a", "b", "c"));
+
+        assertEquals(List.of("b", "c"), hitIds(unseen));
+        verify(hitIdRepository).findClaimed(List.of("a", "b"));
+    }
+
+    @Test
+    void seenIdsAreKeptAfterTheirClaimExpired() {
+        deduplicator.markSeen(batch("a"));
+        when(hitIdRepository.findClaimed(any())).thenReturn(Set.of());
+
+        assertEquals(List.of("a"), hitIds(deduplicator.dropSeen(batch("a"))));
+    }
+
+    private static HitBatch batch(String... hitIds) {
+        List<EndpointHit> hits = new ArrayList<>();
+        for (String hitId : hitIds) {
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/1", "10.0.0.1",
+                    LocalDateTime.of(2026, 1, 1, 0, 0), hitId));
+        }
+        return HitBatch.of(hits);
+    }
+
+    private static List<String> hitIds(HitBatch batch) {
+        String[] hitIds = new String[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            hitIds[i] = batch.hitId(i);
+        }
+        return Arrays.asList(hitIds);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package ru.practicum.stats.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.model.HitRetentionAction;
+import ru.practicum.stats.repository.HitPartitionRepository;
+import ru.practicum.stats.repository.RollupRepository;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs partition maintenance against a Postgres of its own, since retention deletes old hits
+ * that other tests rely on.
+ */
+class HitPartitionManagerTest {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private static EmbeddedPostgres postgres;
+
+    private JdbcTemplate jdbc;
+    private HitPartitionRepository partitionRepository;
+
+    @BeforeAll
+    static void startDatabase() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbc.execute("DROP TABLE IF EXISTS endpoint_hits CASCADE");
+        jdbc.queryForList("SELECT tablename FROM pg_tables WHERE tablename LIKE 'endpoint_hits_p%'", String.class)
+                .forEach(table -> jdbc.execute("DROP TABLE " + table));
+        jdbc.execute("CREATE SEQUENCE IF NOT EXISTS endpoint_hits_seq");
+        partitionRepository = new HitPartitionRepository(jdbc);
+        partitionRepository.createTable();
+        partitionRepository.createDefaultPartitionAndIndexes();
+    }
+
+    @Test
+    void partitionsAreCreatedAheadAndDaysInTheDefaultPartitionGetTheirOwn() {
+        insertHits(TODAY.minusDays(10), 3);
+
+        manager(2, 0, HitRetentionAction.DROP).maintain();
+
+        assertEquals(List.of(TODAY.minusDays(10), TODAY, TODAY.plusDays(1), TODAY.plusDays(2)),
+                partitionRepository.findPartitionDays());
+        assertEquals(3, count("endpoint_hits_p" + basic(TODAY.minusDays(10))));
+        assertEquals(0, count("endpoint_hits_default"));
+        assertEquals(3, count("endpoint_hits"));
+    }
+
+    @Test
+    void maintenanceIsIdempotent() {
+        HitPartitionManager manager = manager(2, 0, HitRetentionAction.DROP);
+        manager.maintain();
+        List<LocalDate> days = partitionRepository.findPartitionDays();
+
+        manager.maintain();
+
+        assertEquals(days, partitionRepository.findPartitionDays());
+    }
+
+    @Test
+    void retentionDropsExpiredPartitionsAndDefaultRows() {
+        partitionRepository.createPartition(TODAY.minusDays(10));
+        insertHits(TODAY.minusDays(10), 2);
+        insertHits(TODAY.minusDays(2), 4);
+        // far beyond the premade range, so it stays in the default partition
+        insertHits(TODAY.minusDays(40), 5);
+
+        manager(1, 5, HitRetentionAction.DROP).maintain();
+
+        assertFalse(partitionRepository.findPartitionDays().contains(TODAY.minusDays(10)));
+        assertFalse(tableExists("endpoint_hits_p" + basic(TODAY.minusDays(10))));
+        assertEquals(4, count("endpoint_hits"));
+    }
+
+    @Test
+    void retentionCanDetachInsteadOfDropping() {
+        partitionRepository.createPartition(TODAY.minusDays(10));
+        insertHits(TODAY.minusDays(10), 2);
+
+        manager(1, 5, HitRetentionAction.DETACH).maintain();
+
+        assertFalse(partitionRepository.findPartitionDays().contains(TODAY.minusDays(10)));
+        assertEquals(0, count("endpoint_hits"));
+        assertTrue(tableExists("endpoint_hits_p" + basic(TODAY.minusDays(10))));
+        assertEquals(2, count("endpoint_hits_p" + basic(TODAY.minusDays(10))));
+    }
+
+    private HitPartitionManager manager(int premakeDays, int retentionDays, HitRetentionAction action) {
+        TransactionTemplate transactionTemplate =
+                new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()));
+        HitPartitionManager manager = new HitPartitionManager(partitionRepository, mock(RollupRepository.class),
+                transactionTemplate);
+        ReflectionTestUtils.setField(manager, "premakeDays", premakeDays);
+        ReflectionTestUtils.setField(manager, "retentionDays", retentionDays);
+        ReflectionTestUtils.setField(manager, "retentionAction", action);
+        return manager;
+    }
+
+    private void insertHits(LocalDate day, int count) {
+        for (int i = 0; i < count; i++) {
+            jdbc.update("INSERT INTO endpoint_hits (app_id, uri_id, ip, timestamp) VALUES (1, 1, '10.0.0.1', ?)",
+                    Timestamp.valueOf(day.atTime(12, i)));
+        }
+    }
+
+    private long count(String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private static String basic(LocalDate day) {
+        return day.toString().replace("-", "");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package ru.practicum.stats.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.dto.EndpointHit;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.stats.model.TimeRange;
+import ru.practicum.stats.repository.RollupRepository;
+import ru.practicum.stats.repository.RollupRepository.CounterRow;
+import ru.practicum.stats.wire.HitBatch;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HotCounterEngineTest {
+    private static final String APP = "ewm-main-service";
+
+    // the previous whole minute, so hits stamped in it stay inside the ring however long the test runs
+    private final LocalDateTime lastMinute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(1);
+    private final LocalDateTime firstMinute = lastMinute.minusMinutes(1);
+    private final RollupRepository rollupRepository = mock(RollupRepository.class);
+    private final HitDictionary hitDictionary = mock(HitDictionary.class);
+
+    @Test
+    void rebuildsFromRollupsAndCountsRecordedHits() {
+        // minute rollups are kept as long as day rollups, so both hold the same hits
+        when(rollupRepository.findTotals()).thenReturn(List.of(
+                new CounterRow(1, 1, APP, "/events/1", null, 7),
+                new CounterRow(1, 2, APP, "/events/2", null, 1)));
+        when(rollupRepository.findMinuteBucketRange()).thenReturn(Optional.of(new TimeRange(firstMinute, lastMinute)));
+        when(rollupRepository.findMinuteCountsSince(any())).thenReturn(List.of(
+                new CounterRow(1, 1, APP, "/events/1", firstMinute, 3),
+                new CounterRow(1, 2, APP, "/events/2", firstMinute, 1),
+                new CounterRow(1, 1, APP, "/events/1", lastMinute, 4)));
+        when(hitDictionary.findUriIds(List.of("/events/2"))).thenReturn(Map.of("/events/2", 2));
+        HotCounterEngine engine = engine(1_000);
+
+        assertEquals(List.of("/events/1=7", "/events/2=1"), allTime(engine, null));
+        assertEquals(List.of("/events/2=1"), allTime(engine, List.of("/events/2")));
+        assertEquals(List.of("/events/1=3", "/events/2=1"), minutes(engine, firstMinute, firstMinute));
+        assertEquals(List.of("/events/1=4"), minutes(engine, lastMinute, lastMinute));
+
+        engine.record(HitBatch.of(List.of(new EndpointHit(null, APP, "/events/1", "10.0.0.1",
+                lastMinute.plusSeconds(5), null))), Map.of(APP, 1), Map.of("/events/1", 1));
+
+        assertEquals(List.of("/events/1=8", "/events/2=1"), allTime(engine, null));
+        assertEquals(List.of("/events/1=5"), minutes(engine, lastMinute, lastMinute));
+        assertEquals(List.of("/events/1=3", "/events/2=1"), minutes(engine, firstMinute, firstMinute));
+    }
+
+    @Test
+    void rangesTheRingCannotAnswerAreLeftToTheDatabase() {
+        when(rollupRepository.findTotals()).thenReturn(List.of(new CounterRow(1, 1, APP, "/events/1", null, 7)));
+        when(rollupRepository.findMinuteBucketRange()).thenReturn(Optional.of(new TimeRange(firstMinute, lastMinute)));
+        when(rollupRepository.findMinuteCountsSince(any())).thenReturn(List.of(
+                new CounterRow(1, 1, APP, "/events/1", firstMinute, 3),
+                new CounterRow(1, 1, APP, "/events/1", lastMinute, 4)));
+        HotCounterEngine engine = engine(1_000);
+
+        assertTrue(engine.query(firstMinute.plusSeconds(7), lastMinute.plusSeconds(59), null, null).isEmpty());
+        assertTrue(engine.query(firstMinute, firstMinute.plusSeconds(30), null, null).isEmpty());
+        assertTrue(engine.query(lastMinute.minusMinutes(120), lastMinute.minusMinutes(100).minusSeconds(1), null,
+                null).isEmpty());
+    }
+
+    @Test
+    void stopsAnsweringOnceThereAreMoreKeysThanItTracks() {
+        when(rollupRepository.findTotals()).thenReturn(List.of(
+                new CounterRow(1, 1, APP, "/events/1", null, 10),
+                new CounterRow(1, 2, APP, "/events/2", null, 1)));
+        HotCounterEngine engine = engine(1);
+
+        assertTrue(engine.query(LocalDateTime.MIN, LocalDateTime.MAX, null, null).isEmpty());
+    }
+
+    private HotCounterEngine engine(int maxKeys) {
+        HotCounterEngine engine = new HotCounterEngine(rollupRepository, hitDictionary, true, 60, maxKeys);
+        engine.rebuild();
+        return engine;
+    }
+
+    private static List<String> allTime(HotCounterEngine engine, List<String> uris) {
+        return engine.query(LocalDateTime.of(2000, 1, 1, 0, 0), LocalDateTime.of(2100, 1, 1, 0, 0), uris, null)
+                .map(HotCounterEngineTest::hitsByUri).orElseThrow();
+    }
+
+    private static List<String> minutes(HotCounterEngine engine, LocalDateTime first, LocalDateTime last) {
+        return engine.query(first, last.plusSeconds(59), null, null)
+                .map(HotCounterEngineTest::hitsByUri).orElseThrow();
+    }
+
+    private static List<String> hitsByUri(List<ViewStats> stats) {
+        return stats.stream().map(s -> s.getUri() + "=" + s.getHits()).toList();
+    }
+}
\ No newline at end of file
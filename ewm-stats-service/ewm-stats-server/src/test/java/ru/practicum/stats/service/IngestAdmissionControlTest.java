@@ -0,0 +1,30 @@
+package ru.practicum.stats.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IngestAdmissionControlTest {
+
+    @Test
+    void ingestMustLeavePooledConnectionsToReads() {
+        assertDoesNotThrow(() -> admissionControl(8, 64, 17, 200));
+        assertThrows(IllegalStateException.class, () -> admissionControl(8, 64, 16, 200));
+    }
+
+    @Test
+    void ingestMustLeaveRequestThreadsToReads() {
+        assertDoesNotThrow(() -> admissionControl(8, 64, 20, 73));
+        assertThrows(IllegalStateException.class, () -> admissionControl(8, 64, 20, 72));
+    }
+
+    private static IngestAdmissionControl admissionControl(int maxInFlight, int maxWaiting, int poolSize,
+                                                           int requestThreads) {
+        return new IngestAdmissionControl(maxInFlight, maxWaiting, Duration.ofMillis(100), Duration.ofSeconds(1),
+                poolSize, requestThreads, new SimpleMeterRegistry());
+    }
+}
\ No newline at end of file
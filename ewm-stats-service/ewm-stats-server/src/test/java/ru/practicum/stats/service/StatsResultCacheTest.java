@@ -0,0 +1,68 @@
+package ru.practicum.stats.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.dto.StatsQuery;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StatsResultCacheTest {
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 10, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 1, 1, 11, 0);
+
+    private final StatsResultCache cache = new StatsResultCache(true, Duration.ofMinutes(1), 1_000,
+            Duration.ofMinutes(10), new SimpleMeterRegistry());
+    private final List<StatsQuery> loaded = new ArrayList<>();
+    private final Function<StatsQuery, List<ViewStats>> loader = query -> {
+        loaded.add(query);
+        return List.of(new ViewStats("ewm-main-service", "/events/1", (long) loaded.size()));
+    };
+
+    @Test
+    void alignedQueriesAreCachedUntilTheirUrisReceiveHits() {
+        cache.get(query(START, END, "/events/1", "/events/2"), loader);
+        cache.get(query(START, END, "/events/2", "/events/1"), loader);
+        assertEquals(1, loaded.size());
+
+        cache.invalidate(List.of("/events/3"));
+        cache.get(query(START, END, "/events/1", "/events/2"), loader);
+        assertEquals(1, loaded.size());
+
+        cache.invalidate(List.of("/events/2"));
+        cache.get(query(START, END, "/events/1", "/events/2"), loader);
+        assertEquals(2, loaded.size());
+    }
+
+    @Test
+    void unalignedQueriesAreLoadedWithTheirOwnBounds() {
+        LocalDateTime end = END.plusSeconds(30);
+
+        cache.get(query(START, end, "/events/1"), loader);
+        cache.get(query(START, end, "/events/1"), loader);
+
+        assertEquals(2, loaded.size());
+        assertEquals(START, loaded.get(0).getStart());
+        assertEquals(end, loaded.get(0).getEnd());
+    }
+
+    @Test
+    void unalignedStartIsNotShiftedOntoACachedWindow() {
+        cache.get(query(START, END, "/events/1"), loader);
+        List<ViewStats> shorter = cache.get(query(START.plusSeconds(59), END, "/events/1"), loader);
+
+        assertEquals(2, loaded.size());
+        assertEquals(2L, shorter.get(0).getHits());
+        assertEquals(START.plusSeconds(59), loaded.get(1).getStart());
+    }
+
+    private static StatsQuery query(LocalDateTime start, LocalDateTime end, String... uris) {
+        return new StatsQuery(start, end, List.of(uris), false, null, false, false);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package ru.practicum.stats.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.dto.EndpointHit;
+import ru.practicum.stats.dto.TopViewStats;
+import ru.practicum.stats.repository.TopSketchRepository;
+import ru.practicum.stats.wire.HitBatch;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class TopHitsTrackerTest {
+    private static final String APP = "ewm-main-service";
+    private static final int CAPACITY = 4;
+
+    private final TopHitsTracker tracker = new TopHitsTracker(mock(TopSketchRepository.class),
+            mock(TransactionTemplate.class), true, CAPACITY, 24);
+
+    @Test
+    void heavyHittersAreReportedWithinTheirErrorBound() {
+        Map<String, Integer> views = Map.of("/events/1", 40, "/events/2", 25, "/events/3", 15);
+        List<EndpointHit> hits = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        views.forEach((uri, count) -> {
+            for (int i = 0; i < count; i++) {
+                hits.add(hit(APP, uri, now));
+            }
+        });
+        // more distinct uris than the sketch can monitor, each seen once
+        for (int i = 0; i < 20; i++) {
+            hits.add(i / 2, hit(APP, "/events/rare-" + i, now));
+        }
+        tracker.record(HitBatch.of(hits));
+
+        List<TopViewStats> top = tracker.top(APP, Duration.ofMinutes(5), 3);
+
+        assertEquals(List.of("/events/1", "/events/2", "/events/3"), top.stream().map(TopViewStats::getUri).toList());
+        long maxError = hits.size() / CAPACITY;
+        for (TopViewStats stats : top) {
+            long actual = views.get(stats.getUri());
+            assertTrue(stats.getHits() >= actual, stats.getUri() + " below " + actual);
+            assertTrue(stats.getHits() - stats.getMaxError() <= actual, stats.getUri() + " error misses " + actual);
+            assertTrue(stats.getMaxError() <= maxError, stats.getUri() + " error above " + maxError);
+        }
+    }
+
+    @Test
+    void windowOnlyCoversItsOwnBuckets() {
+        LocalDateTime now = LocalDateTime.now();
+        tracker.record(HitBatch.of(List.of(
+                hit(APP, "/events/old", now.minusHours(2)),
+                hit(APP, "/events/old", now.minusHours(2)),
+                hit(APP, "/events/new", now),
+                hit("other-app", "/events/other", now))));
+
+        assertEquals(List.of("/events/new=1"), hitsByUri(tracker.top(APP, Duration.ofHours(1), 3)));
+        assertEquals(List.of("/events/old=2", "/events/new=1"), hitsByUri(tracker.top(APP, Duration.ofHours(3), 3)));
+        assertEquals(2, tracker.top(null, Duration.ofMinutes(1), 3).size());
+    }
+
+    @Test
+    void rejectsQueriesOutsideWhatIsTracked() {
+        assertThrows(RuntimeException.class, () -> tracker.top(APP, Duration.ofHours(1), CAPACITY + 1));
+        assertThrows(RuntimeException.class, () -> tracker.top(APP, Duration.ofHours(25), 1));
+        assertThrows(RuntimeException.class, () -> tracker.top(APP, Duration.ZERO, 1));
+    }
+
+    private static EndpointHit hit(String app, String uri, LocalDateTime timestamp) {
+        return new EndpointHit(null, app, uri, "10.0.0.1", timestamp, null);
+    }
+
+    private static List<String> hitsByUri(List<TopViewStats> top) {
+        return top.stream().map(s -> s.getUri() + "=" + s.getHits()).toList();
+    }
+}
\ No newline at end of file
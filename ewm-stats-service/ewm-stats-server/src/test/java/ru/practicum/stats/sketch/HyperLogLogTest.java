@@ -0,0 +1,139 @@
+package ru.practicum.stats.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+    private static final double MAX_ERROR = 4 * HyperLogLog.STANDARD_ERROR;
+    private static final int RUNS = 20;
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertEquals(0, new HyperLogLog().estimate());
+        assertEquals(0, HyperLogLog.fromBytes(new HyperLogLog().toBytes()).estimate());
+    }
+
+    @Test
+    void smallCardinalitiesAreExact() {
+        for (int run = 0; run < RUNS; run++) {
+            for (int n = 1; n <= HyperLogLog.EXACT_LIMIT; n++) {
+                assertEquals(n, sketch(run, 0, n).estimate());
+            }
+        }
+    }
+
+    @Test
+    void smallSketchesStayExactThroughMergeAndSerialization() {
+        HyperLogLog merged = HyperLogLog.fromBytes(new byte[]{0});
+        for (int part = 0; part < 4; part++) {
+            merged.merge(HyperLogLog.fromBytes(sketch(0, part * 50, part * 50 + 60).toBytes()));
+        }
+
+        assertEquals(210, merged.estimate());
+        assertEquals(210, HyperLogLog.fromBytes(merged.toBytes()).estimate());
+    }
+
+    @Test
+    void mergePastTheExactLimitFallsBackToTheEstimate() {
+        HyperLogLog merged = sketch(0, 0, HyperLogLog.EXACT_LIMIT);
+        merged.merge(sketch(0, HyperLogLog.EXACT_LIMIT, 2_000));
+
+        assertArrayEquals(sketch(0, 0, 2_000).toBytes(), merged.toBytes());
+        assertWithin(2_000, merged.estimate(), MAX_ERROR);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {100, 1_000, 10_000, 100_000, 1_000_000})
+    void estimateIsWithinFourStandardErrors(int n) {
+        assertWithin(n, sketch(0, 0, n).estimate(), MAX_ERROR);
+    }
+
+    /**
+     * Covers the range around 2.5 * 2^12 where estimators that switch from linear counting to the
+     * raw estimate are biased.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 5_000, 10_000, 20_000, 100_000})
+    void rootMeanSquareErrorMatchesTheStandardError(int n) {
+        double squares = 0;
+        for (int run = 0; run < RUNS; run++) {
+            double error = (sketch(run, 0, n).estimate() - n) / (double) n;
+            squares += error * error;
+        }
+        double rmse = Math.sqrt(squares / RUNS);
+        assertTrue(rmse < 1.5 * HyperLogLog.STANDARD_ERROR, "rmse " + rmse + " at " + n);
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog merged = sketch(0, 0, 60_000);
+        merged.merge(sketch(0, 40_000, 100_000));
+
+        assertArrayEquals(sketch(0, 0, 100_000).toBytes(), merged.toBytes());
+        assertWithin(100_000, merged.estimate(), MAX_ERROR);
+    }
+
+    @Test
+    void mergeWithEmptyOrSelfChangesNothing() {
+        HyperLogLog hll = sketch(0, 0, 5_000);
+        byte[] before = hll.toBytes();
+
+        hll.merge(new HyperLogLog());
+        hll.merge(HyperLogLog.fromBytes(before));
+
+        assertArrayEquals(before, hll.toBytes());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, HyperLogLog.EXACT_LIMIT + 1, 1_000, 100_000})
+    void serializationKeepsTheEstimate(int n) {
+        HyperLogLog hll = sketch(0, 0, n);
+        byte[] bytes = hll.toBytes();
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+
+        assertEquals(hll.estimate(), restored.estimate());
+        assertArrayEquals(bytes, restored.toBytes());
+    }
+
+    @Test
+    void sparseFormIsSmallerThanDense() {
+        int dense = 1 + (1 << HyperLogLog.PRECISION);
+
+        // 1000 values set at most 1000 registers, 3 bytes each
+        assertEquals(1 + 8 * 100, sketch(0, 0, 100).toBytes().length);
+        assertTrue(sketch(0, 0, 1_000).toBytes().length <= 1 + 3 * 1_000);
+        assertEquals(dense, sketch(0, 0, 100_000).toBytes().length);
+    }
+
+    @Test
+    void mergeOfDeserializedSketchesEstimatesTheUnion() {
+        HyperLogLog merged = new HyperLogLog();
+        for (int part = 0; part < 10; part++) {
+            merged.merge(HyperLogLog.fromBytes(sketch(0, part * 20_000, (part + 1) * 20_000).toBytes()));
+        }
+
+        assertWithin(200_000, merged.estimate(), MAX_ERROR);
+    }
+
+    private static HyperLogLog sketch(int run, int from, int to) {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            hll.add(ip(run, i));
+        }
+        return hll;
+    }
+
+    private static String ip(int run, int i) {
+        return (10 + run) + "." + (i >>> 16) + "." + ((i >>> 8) & 0xFF) + "." + (i & 0xFF);
+    }
+
+    private static void assertWithin(long expected, long actual, double relativeError) {
+        double error = Math.abs(actual - expected) / (double) expected;
+        assertTrue(error <= relativeError, "estimate " + actual + " for " + expected + " is off by " + error);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package ru.practicum.stats.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+    private static final int CAPACITY = 50;
+    private static final int KEYS = 500;
+
+    @Test
+    void countsAreExactWhileEveryKeyFits() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        sketch.add("/events/1", 4);
+        sketch.add("/events/2", 1);
+        sketch.add("/events/1", 2);
+        sketch.add("/events/3", 3);
+
+        assertEquals(List.of(new SpaceSaving.Estimate("/events/1", 6, 0), new SpaceSaving.Estimate("/events/3", 3, 0),
+                new SpaceSaving.Estimate("/events/2", 1, 0)), sketch.top(3));
+        assertEquals(10, sketch.total());
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5})
+    void countsStayWithinTheReportedErrorOnASkewedStream(long seed) {
+        List<String> stream = skewedStream(seed);
+        SpaceSaving sketch = new SpaceSaving(CAPACITY);
+        stream.forEach(key -> sketch.add(key, 1));
+
+        assertWithinBounds(sketch, counts(stream));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5})
+    void mergedSketchesStayWithinTheirAddedErrors(long seed) {
+        List<String> stream = skewedStream(seed);
+        SpaceSaving merged = new SpaceSaving(CAPACITY);
+        for (int part = 0; part < 4; part++) {
+            SpaceSaving sketch = new SpaceSaving(CAPACITY);
+            stream.subList(part * stream.size() / 4, (part + 1) * stream.size() / 4).forEach(key -> sketch.add(key, 1));
+            merged.merge(SpaceSaving.fromBytes(sketch.toBytes()));
+        }
+
+        assertEquals(stream.size(), merged.total());
+        assertWithinBounds(merged, counts(stream));
+    }
+
+    @Test
+    void serializationKeepsCountsAndErrors() {
+        SpaceSaving sketch = new SpaceSaving(CAPACITY);
+        skewedStream(1).forEach(key -> sketch.add(key, 1));
+
+        SpaceSaving restored = SpaceSaving.fromBytes(sketch.toBytes());
+
+        assertEquals(sketch.top(CAPACITY), restored.top(CAPACITY));
+        assertEquals(sketch.total(), restored.total());
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSaving(0));
+    }
+
+    /**
+     * Checks the guarantees in the class comment: every count is an upper bound that exceeds the
+     * true count by at most its error, errors stay within {@code total / capacity}, and every key
+     * seen more often than that is monitored.
+     */
+    private static void assertWithinBounds(SpaceSaving sketch, Map<String, Long> exact) {
+        long maxError = sketch.total() / sketch.capacity();
+        List<SpaceSaving.Estimate> top = sketch.top(sketch.capacity());
+        for (SpaceSaving.Estimate estimate : top) {
+            long actual = exact.getOrDefault(estimate.key(), 0L);
+            assertTrue(estimate.count() >= actual, estimate + " below " + actual);
+            assertTrue(estimate.count() - estimate.error() <= actual, estimate + " error misses " + actual);
+            assertTrue(estimate.error() <= maxError, estimate + " error above " + maxError);
+        }
+        exact.forEach((key, count) -> {
+            if (count > maxError) {
+                assertTrue(top.stream().anyMatch(e -> e.key().equals(key)), key + " seen " + count + " times");
+            }
+        });
+    }
+
+    /**
+     * Roughly Zipf-distributed page views over {@link #KEYS} uris, shuffled so that heavy hitters
+     * also arrive late.
+     */
+    private static List<String> skewedStream(long seed) {
+        List<String> stream = new ArrayList<>();
+        for (int key = 1; key <= KEYS; key++) {
+            for (int i = 0; i < 10_000 / key; i++) {
+                stream.add("/events/" + key);
+            }
+        }
+        Collections.shuffle(stream, new Random(seed));
+        return stream;
+    }
+
+    private static Map<String, Long> counts(List<String> stream) {
+        Map<String, Long> counts = new HashMap<>();
+        stream.forEach(key -> counts.merge(key, 1L, Long::sum));
+        return counts;
+    }
+}
\ No newline at end of file